@@ -0,0 +1,312 @@
+/**
+ * File: Autocomplete.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created radix trie of artists and titles with
+ *                               top-k completions for the search box
+ *****************************************************************************
+ */
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suggests artists or titles for what has been typed so far. The distinct
+ * names, case folded as Song.foldCase() does, are stored in a radix trie: each
+ * node holds a run of characters shared by every name below it, and the k
+ * names below it with the most songs, worked out once when the trie is built.
+ * A suggestion walks down the trie one character of the prefix at a time and
+ * returns the node's list, so it costs O(prefix length) however many songs
+ * match, and no song is looked at.
+ *
+ * Node labels are not copied out of the names: each one is a (start, end)
+ * span of the first name below the node.
+ *
+ * @author Brendon Butler
+ */
+public class Autocomplete {
+    public static final int DEFAULT_SUGGESTIONS = 10;
+
+    // distinct folded names in ascending order, a name's id is its index
+    private final String[] keys;
+    // the name as it is first spelled in the songs, shown as the suggestion
+    private final String[] names;
+    // number of songs with each name
+    private final int[] counts;
+    private final int k;
+    // null when there are no names
+    private final Node root;
+
+    /**
+     * Build the trie
+     *
+     * @param values the artist or title of every song, repeats included
+     * @param k      most suggestions to keep for each prefix
+     */
+    private Autocomplete(List<String> values, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("need at least one suggestion: " + k);
+
+        this.k = k;
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> spellings = new ArrayList<>();
+        List<String> folded = new ArrayList<>();
+        int[] found = new int[16];
+
+        for (String value : values) {
+            String key = Song.foldCase(value);
+            Integer id = ids.get(key);
+
+            if (id == null) {
+                id = folded.size();
+                ids.put(key, id);
+                folded.add(key);
+                spellings.add(value);
+                if (id == found.length)
+                    found = Arrays.copyOf(found, id * 2);
+            }
+
+            found[id]++;
+        }
+
+        keys = folded.toArray(new String[0]);
+        Arrays.sort(keys);
+        names = new String[keys.length];
+        counts = new int[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            int id = ids.get(keys[i]);
+            names[i] = spellings.get(id);
+            counts[i] = found[id];
+        }
+
+        root = keys.length == 0 ? null : build(0, keys.length, 0);
+    }
+
+    /**
+     * @param sc the songs
+     * @param k  most suggestions to give
+     * @return suggestions of the songs' artists, most songs first
+     */
+    public static Autocomplete forArtists(SongCollection sc, int k) {
+        List<String> artists = new ArrayList<>();
+        for (Song song : sc.getAllSongs())
+            artists.add(song.getArtist());
+
+        return new Autocomplete(artists, k);
+    }
+
+    /**
+     * @param sc the songs
+     * @return suggestions of the songs' artists, DEFAULT_SUGGESTIONS at a time
+     */
+    public static Autocomplete forArtists(SongCollection sc) {
+        return forArtists(sc, DEFAULT_SUGGESTIONS);
+    }
+
+    /**
+     * @param sc the songs
+     * @param k  most suggestions to give
+     * @return suggestions of the songs' titles, the titles most songs share first
+     */
+    public static Autocomplete forTitles(SongCollection sc, int k) {
+        List<String> titles = new ArrayList<>();
+        for (Song song : sc.getAllSongs())
+            titles.add(song.getTitle());
+
+        return new Autocomplete(titles, k);
+    }
+
+    /**
+     * @param sc the songs
+     * @return suggestions of the songs' titles, DEFAULT_SUGGESTIONS at a time
+     */
+    public static Autocomplete forTitles(SongCollection sc) {
+        return forTitles(sc, DEFAULT_SUGGESTIONS);
+    }
+
+    /**
+     * Build the node for names that share their first depth characters. The
+     * names are sorted, so what they all share is what the first and last
+     * have in common.
+     *
+     * @param from  id of the first name
+     * @param to    id after the last name
+     * @param depth number of characters the names share with the parent node
+     * @return the node
+     */
+    private Node build(int from, int to, int depth) {
+        String first = keys[from];
+        String last = keys[to - 1];
+        int end = depth;
+        while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end))
+            end++;
+
+        Node node = new Node(from, depth, end);
+        int[] top = new int[k];
+        int size = 0;
+        int id = from;
+
+        // only the first name can end here, a shorter name sorts first
+        if (first.length() == end)
+            size = offer(top, size, id++);
+
+        List<Node> children = new ArrayList<>();
+        while (id < to) {
+            char c = keys[id].charAt(end);
+            int next = id;
+            while (next < to && keys[next].charAt(end) == c)
+                next++;
+
+            Node child = build(id, next, end);
+            children.add(child);
+            for (int best : child.top)
+                size = offer(top, size, best);
+
+            id = next;
+        }
+
+        node.firstChars = new char[children.size()];
+        node.children = children.toArray(new Node[0]);
+        for (int i = 0; i < node.children.length; i++)
+            node.firstChars[i] = keys[node.children[i].keyId].charAt(end);
+
+        node.top = Arrays.copyOf(top, size);
+        return node;
+    }
+
+    /**
+     * Keep a name in a top list if it is one of the best k seen so far
+     *
+     * @param top  ids of the best names so far, best first
+     * @param size number of ids in the list
+     * @param id   the name to offer
+     * @return the new number of ids in the list
+     */
+    private int offer(int[] top, int size, int id) {
+        int i = Math.min(size, top.length - 1);
+
+        if (size == top.length && !ranksBefore(id, top[i]))
+            return size;
+
+        // shift worse names down to make room
+        while (i > 0 && ranksBefore(id, top[i - 1])) {
+            top[i] = top[i - 1];
+            i--;
+        }
+
+        top[i] = id;
+        return Math.min(size + 1, top.length);
+    }
+
+    /**
+     * @param a a name id
+     * @param b another name id
+     * @return true if name a has more songs, or as many and sorts first
+     */
+    private boolean ranksBefore(int a, int b) {
+        return counts[a] != counts[b] ? counts[a] > counts[b] : a < b;
+    }
+
+    /**
+     * Suggest names that start with what has been typed, case ignored
+     *
+     * @param prefix the start of a name
+     * @return up to k names starting with the prefix, those with the most
+     * songs first, and ties in alphabetical order
+     */
+    public String[] suggest(String prefix) {
+        String folded = Song.foldCase(prefix);
+        Node node = root;
+        int matched = 0;
+
+        while (node != null) {
+            String key = keys[node.keyId];
+
+            for (int i = node.start; i < node.end && matched < folded.length(); i++, matched++) {
+                if (key.charAt(i) != folded.charAt(matched))
+                    return new String[0];
+            }
+
+            if (matched == folded.length()) {
+                String[] suggestions = new String[node.top.length];
+                for (int i = 0; i < suggestions.length; i++)
+                    suggestions[i] = names[node.top[i]];
+
+                return suggestions;
+            }
+
+            node = node.child(folded.charAt(matched));
+        }
+
+        return new String[0];
+    }
+
+    /**
+     * @return the number of distinct names
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * A node of the trie
+     */
+    private static class Node {
+        // the label is keys[keyId] from start to end, keyId is the first name below the node
+        final int keyId;
+        final int start;
+        final int end;
+        // first character of each child's label, ascending
+        char[] firstChars;
+        Node[] children;
+        // ids of the best names below this node, best first
+        int[] top;
+
+        /**
+         * @param keyId first name below the node
+         * @param start start of the label in the name
+         * @param end   end of the label in the name
+         */
+        Node(int keyId, int start, int end) {
+            this.keyId = keyId;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @param c the next character
+         * @return the child whose label starts with it, or null
+         */
+        Node child(char c) {
+            int i = Arrays.binarySearch(firstChars, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    /**
+     * testing method for this unit
+     * @param args command line arguments set in Project Properties -
+     * the first argument is the data file name and the second is the
+     * start of an artist or title.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: prog songfile prefix");
+            return;
+        }
+
+        SongCollection sc = new SongCollection(args[0]);
+        Autocomplete artists = forArtists(sc);
+        Autocomplete titles = forTitles(sc);
+
+        System.out.printf("%d artists, %d titles%n", artists.size(), titles.size());
+        System.out.println("artists: " + Arrays.toString(artists.suggest(args[1])));
+        System.out.println("titles: " + Arrays.toString(titles.suggest(args[1])));
+    }
+}
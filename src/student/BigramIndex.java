@@ -0,0 +1,293 @@
+/**
+ * File: BigramIndex.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Documenting that search() checks only songs
+ *                               with the pairs for an exact match
+ * 10/18/2026 - Brendon Butler - Documenting what the pairs can and can't narrow
+ * 10/18/2026 - Brendon Butler - Pairs read from the lowercased lyrics, as the
+ *                               positional index reads them
+ * 10/18/2026 - Brendon Butler - Created word pair index for exact phrase search
+ *****************************************************************************
+ */
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Index of adjacent word pairs, common words included. "all you", "you need",
+ * "need is" and "is love" each have their own song list, so an exact phrase
+ * made mostly or only of common words can be narrowed to the songs that hold
+ * its words side by side before any positions are checked.
+ *
+ * A search that needs the words side by side, SearchByLyricsPhrase.searchExact(),
+ * narrows its candidates with the pairs. The ranked search() also matches the
+ * words in order with other words between them, so a song without the pair
+ * can still rank and stays a candidate, but it can't hold the phrase word for
+ * word, so search() only checks the songs holding every pair for that match.
+ *
+ * Only pairs found in at least minSongs songs are kept, and the most frequent
+ * pairs are kept first until the memory cap is reached, so the index never
+ * grows past the cap however large the song file is. The phrases typed most
+ * are made of the most frequent pairs. A pair that is left out is no help to
+ * a search, which then narrows by the songs of each word alone: this can cost
+ * the most for two common words that rarely meet, whose pair would have cut
+ * the candidates the most. The results are the same either way.
+ *
+ * Pairs are term ids of a PositionalIndex packed into a long, first word in
+ * the high half. Two words only form a pair when they are neighbouring tokens
+ * that the positional index holds.
+ *
+ * @author Brendon Butler
+ */
+public class BigramIndex {
+    public static final long DEFAULT_MEMORY_CAP = 32L << 20;
+    public static final int DEFAULT_MIN_SONGS = 16;
+    // key, array header and reference of each kept pair
+    private static final int PAIR_OVERHEAD = 8 + 16 + 8;
+
+    private final PositionalIndex index;
+    // ascending pair keys
+    private final long[] pairs;
+    // pair -> ascending ids of the songs holding the pair
+    private final int[][] songIds;
+    private final long memoryUsed;
+
+    /**
+     * Index the word pairs of every song in the positional index
+     *
+     * @param index     positional index of the songs, its term ids are the pair halves
+     * @param memoryCap most bytes the kept pairs may take
+     * @param minSongs  fewest songs a pair must occur in to be kept
+     */
+    public BigramIndex(PositionalIndex index, long memoryCap, int minSongs) {
+        this.index = index;
+        LyricsTokenizer tokens = new LyricsTokenizer("");
+        long[] songPairs = new long[256];
+
+        // first pass: count the songs each pair occurs in
+        PairCounter counter = new PairCounter();
+        for (int songId = 0; songId < index.size(); songId++) {
+            songPairs = pairsOf(index.getSong(songId).getLyrics(), tokens, songPairs);
+            for (int i = 1; i <= (int) songPairs[0]; i++)
+                counter.increment(songPairs[i]);
+        }
+
+        // keep the frequent pairs, most frequent first, while they fit under the cap
+        long[] byCount = counter.frequent(minSongs);
+        long used = 0;
+        int kept = 0;
+
+        for (long entry : byCount) {
+            int count = (int) (entry >>> 32);
+            long cost = PAIR_OVERHEAD + 4L * count;
+
+            if (used + cost > memoryCap)
+                break;
+
+            used += cost;
+            kept++;
+        }
+
+        pairs = new long[kept];
+        for (int i = 0; i < kept; i++)
+            pairs[i] = counter.keys[(int) byCount[i]];
+        Arrays.sort(pairs);
+
+        songIds = new int[kept][];
+        for (int i = 0; i < kept; i++)
+            songIds[i] = new int[counter.count(pairs[i])];
+
+        // second pass: fill the song lists of the kept pairs, song ids come in ascending order
+        int[] filled = new int[kept];
+        for (int songId = 0; songId < index.size() && kept > 0; songId++) {
+            songPairs = pairsOf(index.getSong(songId).getLyrics(), tokens, songPairs);
+
+            for (int i = 1; i <= (int) songPairs[0]; i++) {
+                int pair = Arrays.binarySearch(pairs, songPairs[i]);
+                if (pair >= 0)
+                    songIds[pair][filled[pair]++] = songId;
+            }
+        }
+
+        memoryUsed = used;
+    }
+
+    /**
+     * Index the word pairs with the default cap and frequency
+     *
+     * @param index positional index of the songs
+     */
+    public BigramIndex(PositionalIndex index) {
+        this(index, DEFAULT_MEMORY_CAP, DEFAULT_MIN_SONGS);
+    }
+
+    /**
+     * Collect the distinct pairs of one song
+     *
+     * @param lyrics the song lyrics
+     * @param tokens tokenizer to reuse
+     * @param buffer scratch array to reuse
+     * @return the buffer (grown if needed) with the pair count in slot 0 and the sorted pairs after it
+     */
+    private long[] pairsOf(String lyrics, LyricsTokenizer tokens, long[] buffer) {
+        // which words stand on their own is decided in the lowercased lyrics, as PositionalIndex does
+        lyrics = lyrics.toLowerCase();
+        int count = 0;
+        int previous = -1;
+        tokens.reset(lyrics);
+
+        while (tokens.next()) {
+            int id = PositionalIndex.isStandalone(lyrics, tokens.start(), tokens.end())
+                    ? index.find(lyrics, tokens.start(), tokens.end()) : -1;
+
+            if (previous >= 0 && id >= 0) {
+                if (count + 2 > buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                buffer[++count] = pair(previous, id);
+            }
+
+            previous = id;
+        }
+
+        // a song is counted once per pair however often the pair repeats
+        Arrays.sort(buffer, 1, count + 1);
+        int distinct = 0;
+        for (int i = 1; i <= count; i++) {
+            if (distinct == 0 || buffer[distinct] != buffer[i])
+                buffer[++distinct] = buffer[i];
+        }
+
+        buffer[0] = distinct;
+        return buffer;
+    }
+
+    /**
+     * @param first  term id of the first word
+     * @param second term id of the second word
+     * @return the pair key
+     */
+    private static long pair(int first, int second) {
+        return (long) first << 32 | second;
+    }
+
+    /**
+     * Song ids of a word pair
+     *
+     * @param first  term id of the first word
+     * @param second term id of the second word
+     * @return ascending ids of the songs holding the words side by side, or null if the
+     * pair was not kept, in which case nothing is known about it
+     */
+    public int[] songs(int first, int second) {
+        int pair = Arrays.binarySearch(pairs, pair(first, second));
+        return pair < 0 ? null : songIds[pair];
+    }
+
+    /**
+     * @return the number of pairs kept
+     */
+    public int size() {
+        return pairs.length;
+    }
+
+    /**
+     * @return estimated bytes taken by the kept pairs
+     */
+    public long memoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Open addressing hash table from pair key to song count, used while building
+     */
+    private static class PairCounter {
+        private long[] keys = new long[1 << 16];
+        private int[] counts = new int[1 << 16];
+        private int size;
+
+        /**
+         * @param key a pair key, counts are stored in slots whose count is not 0
+         */
+        void increment(long key) {
+            int slot = slot(key);
+
+            if (counts[slot] == 0) {
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    counts[slot] = 1;
+                    grow();
+                    return;
+                }
+            }
+
+            counts[slot]++;
+        }
+
+        /**
+         * @param key a pair key
+         * @return its song count, 0 if it was never seen
+         */
+        int count(long key) {
+            return counts[slot(key)];
+        }
+
+        /**
+         * @param key a pair key
+         * @return the slot holding the key, or the empty slot where it belongs
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            long hash = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash >>> 32) & mask;
+
+            while (counts[slot] != 0 && keys[slot] != key)
+                slot = (slot + 1) & mask;
+
+            return slot;
+        }
+
+        /**
+         * Double the table and place every key again
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldCounts.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCounts[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        /**
+         * @param minCount fewest songs a pair must occur in
+         * @return the pairs with at least minCount songs, most songs first, each as the
+         * count in the high half and the slot in the low half
+         */
+        long[] frequent(int minCount) {
+            long[] result = new long[size];
+            int used = 0;
+
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (counts[slot] >= Math.max(minCount, 1))
+                    result[used++] = (long) counts[slot] << 32 | slot;
+            }
+
+            Arrays.sort(result, 0, used);
+            for (int i = 0, j = used - 1; i < j; i++, j--) {
+                long swap = result[i];
+                result[i] = result[j];
+                result[j] = swap;
+            }
+
+            return Arrays.copyOf(result, used);
+        }
+    }
+}
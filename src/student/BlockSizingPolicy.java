@@ -0,0 +1,95 @@
+/**
+ * File: BlockSizingPolicy.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created pluggable level 2 array sizing for
+ *                               RaggedArrayList
+ *****************************************************************************
+ */
+package student;
+
+/**
+ * Decides how large the level 2 arrays of a RaggedArrayList get. When an add
+ * fills an array, the array is doubled if it is shorter than maxCapacity(),
+ * else it is split in two. When a remove leaves an array with fewer items
+ * than rebalanceBelow(), it is merged with a neighbour or borrows from it.
+ *
+ * Arrays start at 4 and only ever double, so a maximum that is not a power of
+ * two is in effect rounded up to one.
+ *
+ * @author Brendon Butler
+ */
+public interface BlockSizingPolicy {
+    /**
+     * references that fit in a 64 byte cache line, with 4 byte compressed
+     * references as the JVM uses on heaps under 32GB
+     */
+    int REFERENCES_PER_CACHE_LINE = 16;
+
+    /**
+     * the original policy: arrays grow until they are as long as the level 1
+     * array, which doubles as the number of arrays does, so both levels stay
+     * near the square root of the size
+     */
+    BlockSizingPolicy LEVEL_ONE_LENGTH = (size, l1Length) -> l1Length;
+
+    /**
+     * arrays grow until they reach the square root of the size, however long
+     * the level 1 array has got
+     */
+    BlockSizingPolicy SQUARE_ROOT = (size, l1Length) -> (int) Math.ceil(Math.sqrt(size));
+
+    /**
+     * @param size     number of items in the list
+     * @param l1Length length of the level 1 array
+     * @return the capacity a full level 2 array may double up to before it is
+     * split instead
+     */
+    int maxCapacity(int size, int l1Length);
+
+    /**
+     * @param capacity length of a level 2 array
+     * @return fewest items the array may hold after a remove without being
+     * rebalanced; an empty array is always rebalanced
+     */
+    default int rebalanceBelow(int capacity) {
+        return capacity / 4;
+    }
+
+    /**
+     * @param lines cache lines each array's references should fill
+     * @return a policy with a fixed array capacity of that many cache lines,
+     * so scanning an array touches a known number of lines
+     */
+    static BlockSizingPolicy cacheLines(int lines) {
+        if (lines < 1)
+            throw new IllegalArgumentException("need at least one cache line: " + lines);
+
+        int capacity = lines * REFERENCES_PER_CACHE_LINE;
+        return (size, l1Length) -> capacity;
+    }
+
+    /**
+     * @param fraction fill fraction, in [0, 1), under which an array is
+     *                 rebalanced after a remove
+     * @return this policy with a different rebalance threshold
+     */
+    default BlockSizingPolicy rebalancingBelow(double fraction) {
+        if (!(fraction >= 0 && fraction < 1))
+            throw new IllegalArgumentException("fraction must be in [0, 1): " + fraction);
+
+        BlockSizingPolicy growth = this;
+        return new BlockSizingPolicy() {
+            @Override
+            public int maxCapacity(int size, int l1Length) {
+                return growth.maxCapacity(size, l1Length);
+            }
+
+            @Override
+            public int rebalanceBelow(int capacity) {
+                return (int) (capacity * fraction);
+            }
+        };
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * File: ConcurrentRaggedArrayList.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - snapshot() and fromUnsorted(), so the title
+ *                               index can be one of these
+ * 10/18/2026 - Brendon Butler - Copy on write versions, so reads never block
+ *                               or retry
+ * 10/18/2026 - Brendon Butler - Ranges read through RaggedArrayList.view()
+ * 10/18/2026 - Brendon Butler - remove()
+ * 10/18/2026 - Brendon Butler - Created thread safe RaggedArrayList with
+ *                               optimistic reads
+ *****************************************************************************
+ */
+package student;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A RaggedArrayList that any number of threads can search while others add
+ * to it.
+ *
+ * The list is copy on write: add() and remove() build a new version with
+ * copyWith() and copyWithout(), which share every level 2 array the change
+ * does not touch, and publish it with a compare and set. A read works on
+ * whichever version was current when it started, which is never changed, so
+ * reads take no locks, never retry and never wait on a write, and any number
+ * of them run side by side. A write copies the level 1 array and the blocks
+ * it changes, O(sqrt N) work, and is redone if another write was published
+ * while it was being made.
+ *
+ * Ranges, toArray() and iterator() return copies taken from one version.
+ * snapshot() hands out the version itself, for readers that need more than
+ * one look at the same items; it must not be changed.
+ *
+ * @author Brendon Butler
+ * @param <E> the item type
+ */
+public class ConcurrentRaggedArrayList<E> implements Iterable<E> {
+    private final Comparator<E> comp;
+    // the current version of the list, never changed once published
+    private final AtomicReference<RaggedArrayList<E>> current;
+
+    /**
+     * create an empty list
+     *
+     * @param c a comparator object
+     */
+    public ConcurrentRaggedArrayList(Comparator<E> c) {
+        this(new RaggedArrayList<>(c), c);
+    }
+
+    /**
+     * @param list the first version, which nothing else may change afterwards
+     * @param c    the list's comparator
+     */
+    private ConcurrentRaggedArrayList(RaggedArrayList<E> list, Comparator<E> c) {
+        comp = c;
+        current = new AtomicReference<>(list);
+    }
+
+    /**
+     * build a list straight from items that are already in order
+     *
+     * @param <E>    the item type
+     * @param sorted items in ascending order according to the comparator
+     * @param c      a comparator object
+     * @return a list holding the items
+     */
+    public static <E> ConcurrentRaggedArrayList<E> fromSorted(E[] sorted, Comparator<E> c) {
+        return new ConcurrentRaggedArrayList<>(RaggedArrayList.fromSorted(sorted, c), c);
+    }
+
+    /**
+     * build a list from items in any order, sorted stably so equal items
+     * keep their order as add() would keep them
+     *
+     * @param <E>   the item type
+     * @param items the items, which are not changed
+     * @param c     a comparator object
+     * @return a list holding the items
+     */
+    public static <E> ConcurrentRaggedArrayList<E> fromUnsorted(E[] items, Comparator<E> c) {
+        return new ConcurrentRaggedArrayList<>(RaggedArrayList.fromUnsorted(items, c), c);
+    }
+
+    /**
+     * add an item after any equal items
+     *
+     * @param item the item to add
+     * @return true
+     */
+    public boolean add(E item) {
+        current.updateAndGet(list -> list.copyWith(item));
+        return true;
+    }
+
+    /**
+     * remove the first item equal to the given one
+     *
+     * @param item the thing to remove
+     * @return true if an equal item was found and removed
+     */
+    public boolean remove(E item) {
+        RaggedArrayList<E> list;
+        RaggedArrayList<E> updated;
+
+        // retry if another write was published while this one was being made
+        do {
+            list = current.get();
+            updated = list.copyWithout(item);
+        } while (!current.compareAndSet(list, updated));
+
+        return updated != list;
+    }
+
+    /**
+     * remove every item
+     */
+    public void clear() {
+        current.set(new RaggedArrayList<>(comp));
+    }
+
+    /**
+     * @return the current version of the list. It is never changed by this
+     * list, so it can be read for as long as needed while items are added and
+     * removed, and it must not be changed by the caller either.
+     */
+    public RaggedArrayList<E> snapshot() {
+        return current.get();
+    }
+
+    /**
+     * @return the number of items
+     */
+    public int size() {
+        return current.get().size();
+    }
+
+    /**
+     * @param item the thing we are looking for.
+     * @return true if the item is in the list
+     */
+    public boolean contains(E item) {
+        return current.get().contains(item);
+    }
+
+    /**
+     * @param index position of the item, from 0
+     * @return the item
+     * @throws IndexOutOfBoundsException if the index is not in [0, size)
+     */
+    public E get(int index) {
+        return current.get().get(index);
+    }
+
+    /**
+     * @param item the thing we are looking for.
+     * @return position of the first item equal to it, or -1 if it is not in the list
+     */
+    public int indexOf(E item) {
+        return current.get().indexOf(item);
+    }
+
+    /**
+     * copy the whole list as it is now
+     *
+     * @param a an array of the actual type, a new one is made if it is too short
+     * @return the filled in array
+     */
+    public E[] toArray(E[] a) {
+        return current.get().toArray(a);
+    }
+
+    /**
+     * copy the items from fromElement, inclusive, to toElement, exclusive
+     *
+     * @param fromElement the starting element
+     * @param toElement   the element after the last element we actually want
+     * @param a           an array of the actual type, a new one is made if it is too short
+     * @return the filled in array
+     */
+    public E[] subList(E fromElement, E toElement, E[] a) {
+        return current.get().view(fromElement, toElement).toArray(a);
+    }
+
+    /**
+     * copy one page of the items from fromElement, inclusive, to toElement,
+     * exclusive. The page is found by position, so a late page costs the same
+     * as the first one.
+     *
+     * @param fromElement the starting element
+     * @param toElement   the element after the last element we actually want
+     * @param offset      number of items in the range to skip
+     * @param limit       most items to copy
+     * @param a           an array of the actual type, only used for its type
+     * @return a new array holding the page
+     */
+    public E[] subList(E fromElement, E toElement, int offset, int limit, E[] a) {
+        RaggedArrayList<E>.View view = current.get().view(fromElement, toElement);
+        int from = Math.min(Math.max(offset, 0), view.size());
+        int count = Math.max(0, Math.min(limit, view.size() - from));
+        E[] page = Arrays.copyOf(a, count);
+        Iterator<E> itr = view.iterator(from);
+
+        for (int i = 0; i < count; i++) {
+            page[i] = itr.next();
+        }
+
+        return page;
+    }
+
+    /**
+     * @return an iterator over a copy of the list taken now, later adds are not seen
+     */
+    @Override
+    public Iterator<E> iterator() {
+        @SuppressWarnings("unchecked")
+        E[] empty = (E[]) new Object[0];
+        return Arrays.asList(toArray(empty)).iterator();
+    }
+}
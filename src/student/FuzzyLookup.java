@@ -0,0 +1,318 @@
+/**
+ * File: FuzzyLookup.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Sorted names walked as a trie with shared
+ *                               Levenshtein rows, replacing the BK-tree
+ * 10/18/2026 - Brendon Butler - Created BK-tree of artists and titles for
+ *                               typo tolerant lookup
+ *****************************************************************************
+ */
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the artists or titles within a small edit distance of what was typed,
+ * so "Beatels" finds "Beatles" and "Rolling Stoens" finds "Rolling Stones".
+ *
+ * The distinct names, case folded as Song.foldCase() does, are kept sorted,
+ * with the length of the prefix each shares with the one before it. A lookup
+ * walks them in order like a trie, keeping one row of the Levenshtein table
+ * per character of the name: names sharing a prefix share its rows, so each
+ * prefix is worked out once. Once every cell of a prefix's row is over the
+ * distance allowed, or the prefix is longer than the query plus the distance,
+ * no name starting with it can match, and the whole run of those names is
+ * skipped by jumping to the next name that shares less with the one before
+ * it. Only prefixes that could still lead to a match are ever measured,
+ * rather than every name, and only the cells of each row within the distance
+ * of the diagonal are worked out.
+ *
+ * @author Brendon Butler
+ */
+public class FuzzyLookup {
+    public static final int DEFAULT_MAX_DISTANCE = 2;
+
+    // distinct folded names in sorted order
+    private final String[] keys;
+    // the name as it is first spelled in the songs, in the order of keys
+    private final String[] names;
+    // number of songs with each name
+    private final int[] counts;
+    // length of the prefix each key shares with the key before it
+    private final int[] shared;
+    // index of the first later key that shares less with the key before it
+    private final int[] jump;
+    // keys with the most songs first, then in sorted order, and each key's place in that order
+    private final int[] byRank;
+    private final int[] rank;
+    private final int longest;
+
+    /**
+     * Sort the distinct names
+     *
+     * @param values the artist or title of every song, repeats included
+     */
+    private FuzzyLookup(List<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> folded = new ArrayList<>();
+        List<String> spellings = new ArrayList<>();
+        int[] found = new int[16];
+
+        for (String value : values) {
+            String key = Song.foldCase(value);
+            Integer id = ids.get(key);
+
+            if (id == null) {
+                id = folded.size();
+                ids.put(key, id);
+                folded.add(key);
+                spellings.add(value);
+                if (id == found.length)
+                    found = Arrays.copyOf(found, id * 2);
+            }
+
+            found[id]++;
+        }
+
+        keys = folded.toArray(new String[0]);
+        Arrays.sort(keys);
+        names = new String[keys.length];
+        counts = new int[keys.length];
+        shared = new int[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            int id = ids.get(keys[i]);
+            names[i] = spellings.get(id);
+            counts[i] = found[id];
+
+            if (i > 0) {
+                int limit = Math.min(keys[i - 1].length(), keys[i].length());
+                while (shared[i] < limit && keys[i - 1].charAt(shared[i]) == keys[i].charAt(shared[i]))
+                    shared[i]++;
+            }
+        }
+
+        // next smaller shared length, worked out right to left with a stack of candidates
+        jump = new int[keys.length];
+        int[] stack = new int[keys.length];
+        int top = 0;
+
+        for (int i = keys.length - 1; i >= 0; i--) {
+            while (top > 0 && shared[stack[top - 1]] >= shared[i])
+                top--;
+
+            jump[i] = top == 0 ? keys.length : stack[top - 1];
+            stack[top++] = i;
+        }
+
+        // stable, so keys with as many songs stay in sorted order
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> counts[b] - counts[a]);
+
+        byRank = new int[keys.length];
+        rank = new int[keys.length];
+        int length = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            byRank[i] = order[i];
+            rank[order[i]] = i;
+            length = Math.max(length, keys[i].length());
+        }
+
+        longest = length;
+    }
+
+    /**
+     * @param sc the songs
+     * @return a lookup of the songs' artists
+     */
+    public static FuzzyLookup forArtists(SongCollection sc) {
+        List<String> artists = new ArrayList<>();
+        for (Song song : sc.getAllSongs())
+            artists.add(song.getArtist());
+
+        return new FuzzyLookup(artists);
+    }
+
+    /**
+     * @param sc the songs
+     * @return a lookup of the songs' titles
+     */
+    public static FuzzyLookup forTitles(SongCollection sc) {
+        List<String> titles = new ArrayList<>();
+        for (Song song : sc.getAllSongs())
+            titles.add(song.getTitle());
+
+        return new FuzzyLookup(titles);
+    }
+
+    /**
+     * Find the names within maxDistance edits of the query, case ignored
+     *
+     * @param query       an artist or title, possibly misspelled
+     * @param maxDistance most insertions, deletions and substitutions allowed
+     * @return the matching names, closest first, then those with the most
+     * songs, then in alphabetical order
+     */
+    public String[] lookup(String query, int maxDistance) {
+        if (maxDistance < 0)
+            throw new IllegalArgumentException("distance can't be negative: " + maxDistance);
+
+        String pattern = Song.foldCase(query);
+        int m = pattern.length();
+        // no two strings are further apart than the longer one is long
+        maxDistance = Math.min(maxDistance, Math.max(m, longest));
+        // a longer name is more than maxDistance insertions away
+        int maxLength = m + maxDistance;
+        // rows[p] is the table row after the first p characters of a name
+        int[][] rows = new int[Math.min(maxLength, longest) + 1][m + 1];
+        for (int j = 0; j <= m; j++)
+            rows[0][j] = j;
+
+        // each match as its distance in the high half and its rank in the low half
+        long[] matches = new long[16];
+        int found = 0;
+        // rows are right for the first valid characters of the key before
+        int valid = 0;
+        int i = 0;
+
+        while (i < keys.length) {
+            String key = keys[i];
+            int p = Math.min(shared[i], valid);
+            int dead = -1;
+
+            while (p < key.length()) {
+                if (p == maxLength) {
+                    dead = p + 1;
+                    break;
+                }
+
+                if (!step(rows[p], rows[p + 1], p + 1, pattern, key.charAt(p), maxDistance)) {
+                    dead = ++p;
+                    break;
+                }
+
+                p++;
+            }
+
+            valid = p;
+
+            if (dead < 0) {
+                // the last cell is only worked out when the lengths are close enough
+                int d = Math.abs(key.length() - m) <= maxDistance ? rows[key.length()][m] : maxDistance + 1;
+                if (d <= maxDistance) {
+                    if (found == matches.length)
+                        matches = Arrays.copyOf(matches, found * 2);
+                    matches[found++] = (long) d << 32 | rank[i];
+                }
+
+                i++;
+            } else {
+                // no key starting with the key's first dead characters can match
+                i = endOfPrefix(i, dead);
+            }
+        }
+
+        Arrays.sort(matches, 0, found);
+        String[] result = new String[found];
+        for (int k = 0; k < found; k++)
+            result[k] = names[byRank[(int) matches[k]]];
+
+        return result;
+    }
+
+    /**
+     * Work out the next row of the Levenshtein table. Only the cells within
+     * maxDistance of the diagonal can be within maxDistance, so only they are
+     * worked out; any cell over maxDistance is kept as maxDistance + 1.
+     *
+     * @param previous    the row before
+     * @param row         the row to fill
+     * @param p           number of characters of the name the row is for
+     * @param pattern     the folded query
+     * @param c           the p-th character of the name
+     * @param maxDistance most edits allowed
+     * @return false if every cell of the row is over maxDistance, so the
+     * name can't come back within it
+     */
+    private static boolean step(int[] previous, int[] row, int p, String pattern, char c, int maxDistance) {
+        int over = maxDistance + 1;
+        int low = Math.max(1, p - maxDistance);
+        int high = Math.min(row.length - 1, p + maxDistance);
+        // the cell left of the band, the first column counts the characters of the name
+        int left = p <= maxDistance ? p : over;
+        int best = left;
+        row[0] = left;
+
+        for (int j = low; j <= high; j++) {
+            int up = j < p + maxDistance ? previous[j] : over;
+            int cell = previous[j - 1] + (pattern.charAt(j - 1) == c ? 0 : 1);
+            cell = Math.min(Math.min(cell, Math.min(up, left) + 1), over);
+
+            row[j] = cell;
+            left = cell;
+            best = Math.min(best, cell);
+        }
+
+        return best <= maxDistance;
+    }
+
+    /**
+     * @param i      index of a key
+     * @param length length of a prefix of the key
+     * @return index of the first key after i that does not start with that prefix
+     */
+    private int endOfPrefix(int i, int length) {
+        int next = i + 1;
+
+        // every key jumped over shares at least as much with the one before it
+        while (next < keys.length && shared[next] >= length)
+            next = jump[next];
+
+        return next;
+    }
+
+    /**
+     * @param query an artist or title, possibly misspelled
+     * @return the names within DEFAULT_MAX_DISTANCE edits of the query
+     */
+    public String[] lookup(String query) {
+        return lookup(query, DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * @return the number of distinct names
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * testing method for this unit
+     * @param args command line arguments set in Project Properties -
+     * the first argument is the data file name and the second is an artist
+     * or title, possibly misspelled.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: prog songfile name");
+            return;
+        }
+
+        SongCollection sc = new SongCollection(args[0]);
+        FuzzyLookup artists = forArtists(sc);
+        FuzzyLookup titles = forTitles(sc);
+
+        System.out.printf("%d artists, %d titles%n", artists.size(), titles.size());
+        System.out.println("artists: " + Arrays.toString(artists.lookup(args[1])));
+        System.out.println("titles: " + Arrays.toString(titles.lookup(args[1])));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * File: LyricsTokenizer.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created single pass lyrics tokenizer
+ *****************************************************************************
+ */
+package student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into words the same way toLowerCase().split("[^a-zA-Z]+") does,
+ * but in one pass over the characters and without creating any Strings. A
+ * word is a run of characters that fold to a-z; everything else separates
+ * words. Case is folded one character at a time as the text is scanned.
+ *
+ * The tokenizer is a cursor: call next() and read the current word as a
+ * (start, end) span of the text, or compare it with a word in place.
+ * <pre>
+ *   LyricsTokenizer tokens = new LyricsTokenizer(lyrics);
+ *   while (tokens.next())
+ *       use(tokens.start(), tokens.end());
+ * </pre>
+ *
+ * @author Brendon Butler
+ */
+public class LyricsTokenizer {
+    // lowercases to "i" plus a combining dot, so it is the last letter of its word
+    private static final char CAPITAL_I_WITH_DOT = '\u0130';
+
+    private CharSequence text;
+    private int position;
+    private int start;
+    private int end;
+
+    /**
+     * Create a tokenizer positioned before the first word of the text
+     *
+     * @param text the text to split into words
+     */
+    public LyricsTokenizer(CharSequence text) {
+        reset(text);
+    }
+
+    /**
+     * Start over on a new text, so one tokenizer can be reused for many songs
+     *
+     * @param text the text to split into words
+     * @return this tokenizer
+     */
+    public LyricsTokenizer reset(CharSequence text) {
+        this.text = text;
+        position = 0;
+        start = end = 0;
+        return this;
+    }
+
+    /**
+     * Advance to the next word
+     *
+     * @return false if there are no more words
+     */
+    public boolean next() {
+        int length = text.length();
+        int i = position;
+
+        while (i < length && fold(text.charAt(i)) == 0)
+            i++;
+
+        if (i == length) {
+            position = start = end = length;
+            return false;
+        }
+
+        start = i;
+        while (i < length) {
+            char c = text.charAt(i);
+
+            if (fold(c) == 0)
+                break;
+
+            i++;
+            if (c == CAPITAL_I_WITH_DOT)
+                break;
+        }
+
+        end = position = i;
+        return true;
+    }
+
+    /**
+     * @return index in the text of the first character of the current word
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return index in the text one past the last character of the current word
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return number of characters in the current word
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * @return the text being tokenized
+     */
+    public CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Compare the current word with a lowercase word without creating a String
+     *
+     * @param word a word made of the letters a-z
+     * @return true if the current word folds to the given word
+     */
+    public boolean matches(String word) {
+        if (word.length() != end - start)
+            return false;
+
+        for (int i = 0; i < word.length(); i++) {
+            if (fold(text.charAt(start + i)) != word.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the current word as a new lowercase String
+     */
+    public String word() {
+        char[] chars = new char[end - start];
+
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = fold(text.charAt(start + i));
+
+        return new String(chars);
+    }
+
+    /**
+     * Split text into lowercase words. Meant for short text such as a query; use
+     * next() for lyrics so no Strings are made.
+     *
+     * @param text the text to split
+     * @return the words in order
+     */
+    public static List<String> words(CharSequence text) {
+        LyricsTokenizer tokens = new LyricsTokenizer(text);
+        List<String> words = new ArrayList<>();
+
+        while (tokens.next())
+            words.add(tokens.word());
+
+        return words;
+    }
+
+    /**
+     * Fold a character to the lowercase letter it stands for. Matches what
+     * String.toLowerCase() followed by the [^a-zA-Z] split would treat as part
+     * of a word, including characters outside ASCII that lowercase into a-z.
+     *
+     * @param c a character of the text
+     * @return the lowercase letter a-z, or 0 if the character separates words
+     */
+    public static char fold(char c) {
+        if (c >= 'a' && c <= 'z')
+            return c;
+
+        if (c >= 'A' && c <= 'Z')
+            return (char) (c + ('a' - 'A'));
+
+        if (c < 128)
+            return 0;
+
+        char lower = Character.toLowerCase(c);
+        return lower >= 'a' && lower <= 'z' ? lower : 0;
+    }
+}
@@ -3,6 +3,10 @@
  *****************************************************************************
  *                       Revision History
  *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Linear time rankPhrase: one tokenizing pass and a
+ *                               next-occurrence table walk replace the indexOf loop
+ * 10/18/2026 - Brendon Butler - Ranking from word positions for PositionalIndex
+ * 10/18/2026 - Brendon Butler - Splitting the phrase with LyricsTokenizer
  * 05/07/2022 - Brendon Butler - Fixed rankPhrase method to get expected results
  *                               and optimized implementation
  * 04/18/2022 - Adarsha Dangi & Brendon Butler - cleanup & testing of rankPhrase
@@ -12,6 +16,7 @@
  */
 package student;
 
+import java.nio.CharBuffer;
 import java.util.*;
 
 public class PhraseRanking {
@@ -25,79 +30,220 @@ public class PhraseRanking {
      * @return rank value determined by ranking algorithm
      */
     public static int rankPhrase(String lyrics, String lyricsPhrase) {
-        String[] phraseWords = lyricsPhrase.toLowerCase().split("[^a-zA-Z]+");
-        lyrics = lyrics.toLowerCase().replaceAll("(\\n|\\r)", "  ");
+        String[] phraseWords = LyricsTokenizer.words(lyricsPhrase).toArray(new String[0]);
 
-        int foundIndex = getExactWordIndex(lyrics, phraseWords[0], 0);
-        int bestRank = -1;
+        // a phrase without any words can't be ranked
+        if (phraseWords.length == 0)
+            return -1;
+
+        char[] text = widenLineBreaks(lyrics.toLowerCase());
+        String lowerPhrase = lyricsPhrase.toLowerCase();
+
+        // check for exact match: the first occurrence of the whole phrase must stand on its own
+        int fullMatchIndex = indexOf(text, lowerPhrase);
+        if (fullMatchIndex >= 0 && isStandalone(text, fullMatchIndex, fullMatchIndex + lowerPhrase.length()))
+            return lyricsPhrase.length();
+
+        return rankOccurrences(wordOccurrences(text, phraseWords), phraseWords[phraseWords.length - 1].length(),
+                lyricsPhrase.length());
+    }
+
+    /**
+     * @param lowerLyrics lowercase lyrics
+     * @return the lyrics with every line feed and carriage return replaced by two spaces
+     */
+    private static char[] widenLineBreaks(String lowerLyrics) {
+        int breaks = 0;
+        for (int i = 0; i < lowerLyrics.length(); i++) {
+            char c = lowerLyrics.charAt(i);
+            if (c == '\n' || c == '\r')
+                breaks++;
+        }
 
-        int fullMatchIndex = lyrics.indexOf(lyricsPhrase.toLowerCase());
-        int exactMatchIndex = getExactWordIndex(lyrics, lyricsPhrase.toLowerCase(), 0);
+        char[] text = new char[lowerLyrics.length() + breaks];
+        int used = 0;
 
-        // check for exact match
-        if (exactMatchIndex >= 0 && fullMatchIndex == exactMatchIndex) {
-            foundIndex = -1;
-            bestRank = lyricsPhrase.length();
+        for (int i = 0; i < lowerLyrics.length(); i++) {
+            char c = lowerLyrics.charAt(i);
+
+            if (c == '\n' || c == '\r') {
+                text[used++] = ' ';
+                text[used++] = ' ';
+            } else {
+                text[used++] = c;
+            }
         }
 
-        // while the foundIndex is not negative and the absolute best rank has not been achieved, loop
-        while (foundIndex >= 0 && bestRank != lyricsPhrase.length()) {
-            Queue<String> words = new ArrayDeque<>(Arrays.asList(phraseWords));
-            int curIndex = foundIndex;
-            int lastIndex = -1;
-            words.poll(); // remove first word as it's index has already been identified
-
-            // while the words queue is not empty and the current index is greater than the previous index, loop
-            while (!words.isEmpty() && curIndex >= lastIndex) {
-                lastIndex = curIndex;
-                curIndex = getExactWordIndex(lyrics, words.peek(), lastIndex + 1);
-
-                // if the current index is greater than the last index, poll the next value from the queue
-                if (curIndex > lastIndex) {
-                    words.poll();
-                }
+        return text;
+    }
+
+    /**
+     * @param text   text to search
+     * @param phrase phrase to look for
+     * @return index of the first occurrence of the phrase, or -1 if there is none
+     */
+    private static int indexOf(char[] text, String phrase) {
+        char first = phrase.charAt(0);
+
+        for (int i = 0; i + phrase.length() <= text.length; i++) {
+            if (text[i] != first)
+                continue;
+
+            int j = 1;
+            while (j < phrase.length() && text[i + j] == phrase.charAt(j))
+                j++;
+
+            if (j == phrase.length())
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param text  the text
+     * @param start index of the first character of a word
+     * @param end   index one past the last character of the word
+     * @return true if neither neighbour of the word is a letter
+     */
+    private static boolean isStandalone(char[] text, int start, int end) {
+        return (start == 0 || !Character.isLetter(text[start - 1]))
+                && (end == text.length || !Character.isLetter(text[end]));
+    }
+
+    /**
+     * Find where each phrase word occurs on its own in one pass over the text. Only a
+     * run of a-z with no letter on either side can be one of the words, so each run
+     * is looked up once in a dictionary of the phrase words.
+     *
+     * @param text        lowercase lyrics with widened line breaks
+     * @param phraseWords the phrase words
+     * @return for each phrase word, the ascending indexes where it occurs on its own
+     */
+    private static int[][] wordOccurrences(char[] text, String[] phraseWords) {
+        TermDictionary words = new TermDictionary();
+        for (String word : phraseWords)
+            words.add(word);
+
+        int[][] found = new int[words.size()][4];
+        int[] counts = new int[words.size()];
+        CharSequence chars = CharBuffer.wrap(text);
+        int i = 0;
+
+        while (i < text.length) {
+            if (text[i] < 'a' || text[i] > 'z') {
+                i++;
+                continue;
             }
 
-            // if the words queue is empty, all the words have been found, calculate the best rank.
-            if (words.isEmpty()) {
-                int rank = curIndex - foundIndex + phraseWords[phraseWords.length - 1].length();
+            int end = i + 1;
+            while (end < text.length && text[end] >= 'a' && text[end] <= 'z')
+                end++;
 
-                if (bestRank > rank || (bestRank == -1 && rank > 0)) {
-                    bestRank = rank;
-                }
+            int id = isStandalone(text, i, end) ? words.find(chars, i, end) : -1;
+            if (id >= 0) {
+                if (counts[id] == found[id].length)
+                    found[id] = Arrays.copyOf(found[id], counts[id] * 2);
+                found[id][counts[id]++] = i;
             }
 
-            // find the next starting index for the initial search term
-            foundIndex = getExactWordIndex(lyrics, phraseWords[0], foundIndex + 1);
+            i = end;
+        }
+
+        int[][] occurrences = new int[phraseWords.length][];
+        for (int w = 0; w < phraseWords.length; w++) {
+            int id = words.find(phraseWords[w]);
+            occurrences[w] = Arrays.copyOf(found[id], counts[id]);
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Rank from the positions of the phrase words. For each start of the first word,
+     * in order, every following word is the first occurrence after the previous one,
+     * and the rank is the smallest such window.
+     *
+     * Rather than walking a chain from every start, the chains are solved backwards
+     * over next-occurrence tables: the chain from an occurrence of word i continues at
+     * the first occurrence of word i + 1 after it, and ends where the chain from that
+     * occurrence ends. The next occurrence only moves forward, so each word is merged
+     * with the following one in a single pass and the whole rank takes linear time.
+     *
+     * @param occurrences     for each phrase word, the ascending offsets of its occurrences
+     * @param lastWordLength  length of the last phrase word
+     * @param phraseLength    length of the phrase; the search stops once a window this size is found
+     * @return the smallest window holding the words in order, or -1 if there is none
+     */
+    static int rankOccurrences(int[][] occurrences, int lastWordLength, int phraseLength) {
+        // chainEnds[p]: where the chain from occurrence p of the current word ends, -1 if it can't finish
+        int[] chainEnds = occurrences[occurrences.length - 1];
+
+        for (int i = occurrences.length - 2; i >= 0; i--) {
+            int[] positions = occurrences[i];
+            int[] following = occurrences[i + 1];
+            int[] ends = new int[positions.length];
+            int next = 0;
+
+            for (int p = 0; p < positions.length; p++) {
+                while (next < following.length && following[next] <= positions[p])
+                    next++;
+
+                ends[p] = next == following.length ? -1 : chainEnds[next];
+            }
+
+            chainEnds = ends;
+        }
+
+        int[] starts = occurrences[0];
+        int bestRank = -1;
+
+        for (int p = 0; p < starts.length && bestRank != phraseLength; p++) {
+            // chains only end later as the start moves forward, so no later start can finish either
+            if (chainEnds[p] < 0)
+                break;
+
+            int rank = chainEnds[p] - starts[p] + lastWordLength;
+            if (bestRank == -1 || rank < bestRank)
+                bestRank = rank;
         }
 
         return bestRank;
     }
 
     /**
-     * Helper class to identify if a word is found with no other letters surrounding it, if not
-     * return the next index of that word without surrounding characters or a negative for no match.
+     * Compare the lyrics at an offset with a lowercase phrase the way rankPhrase() sees
+     * the lyrics: lowercased, with each line break read as two spaces
      *
-     * @author Brendon Butler
-     * @param lyrics    lyrics to be searched
-     * @param word      word to search for
-     * @param adjust    index adjustment for forward searching
-     * @return either the identified exact match index or a negative for no match
+     * @param lyrics      the song lyrics
+     * @param offset      character offset in the lyrics to compare at
+     * @param lowerPhrase the lowercase phrase
+     * @return true if the phrase matches there and is not followed by a letter
      */
-    private static int getExactWordIndex(String lyrics, String word, int adjust) {
-        int curIndex = lyrics.indexOf(word, adjust);
-        boolean foreChar = true, aftChar = true;
+    static boolean phraseAt(String lyrics, int offset, String lowerPhrase) {
+        int i = offset;
+        int j = 0;
+
+        while (j < lowerPhrase.length()) {
+            if (i == lyrics.length())
+                return false;
 
-        while (curIndex >= 0 && !(!foreChar && !aftChar)) {
-            foreChar = (curIndex != 0 && Character.isLetter(lyrics.charAt(curIndex - 1)));
-            aftChar = (curIndex + word.length() != lyrics.length() && Character.isLetter(lyrics.charAt(curIndex + word.length())));
+            char c = lyrics.charAt(i++);
 
-            // if the character before or after the word is a character, find the next match index
-            if (foreChar || aftChar)
-                curIndex = lyrics.indexOf(word, curIndex + 1);
+            if (c == '\n' || c == '\r') {
+                if (lowerPhrase.charAt(j++) != ' ')
+                    return false;
+                // the phrase may end between the two spaces, which is still followed by a space
+                if (j == lowerPhrase.length())
+                    return true;
+                if (lowerPhrase.charAt(j++) != ' ')
+                    return false;
+            } else if (Character.toLowerCase(c) != lowerPhrase.charAt(j++)) {
+                return false;
+            }
         }
 
-        return curIndex;
+        return i == lyrics.length() || !Character.isLetter(lyrics.charAt(i));
     }
 
     /**
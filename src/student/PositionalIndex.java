@@ -0,0 +1,471 @@
+/**
+ * File: PositionalIndex.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - rank() told when a song can't match exactly
+ * 10/18/2026 - Brendon Butler - Phrase check settled from the word gaps and a
+ *                               space-after bit per occurrence, reading the
+ *                               lyrics only for phrases with other separators,
+ *                               phrases that don't start with a letter ranked
+ *                               from the text
+ * 10/18/2026 - Brendon Butler - Offsets taken in the lowercased lyrics that
+ *                               rankPhrase() scans
+ * 10/18/2026 - Brendon Butler - Exposing span lookup and phrase check for BigramIndex
+ * 10/18/2026 - Brendon Butler - Created positional index for phrase ranking
+ *****************************************************************************
+ */
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Inverted index that records where each word occurs in each song, so that
+ * phrase matching and phrase ranking never have to scan the lyrics text.
+ *
+ * Every word of the lyrics is indexed, common words and single letters
+ * included, because phrases are made of them. Only the occurrences that
+ * PhraseRanking.rankPhrase() can match are kept: those that are not directly
+ * next to another letter (for example "caf" in "caf\u00e9" is left out). Each kept
+ * occurrence stores its token ordinal (the how-many-th word of the lyrics it
+ * is) and its character offset in the lowercased lyrics.
+ *
+ * Offsets are taken in lyrics.toLowerCase(), the text rankPhrase() scans,
+ * not in the lyrics themselves: a few characters, such as '\u0130', lowercase
+ * to two characters, and every offset after one would otherwise be off by one.
+ *
+ * rankPhrase() measures distances in the lyrics with every line break widened
+ * to two spaces, so each song also keeps the offsets of its line breaks; the
+ * ranking offset of a word is its character offset plus the number of line
+ * breaks before it.
+ *
+ * Each occurrence also keeps one bit telling whether a space follows the word,
+ * so a phrase of words with single spaces between them, the way phrases are
+ * usually typed, is matched word for word without reading the lyrics.
+ *
+ * @author Brendon Butler
+ */
+public class PositionalIndex {
+    private final Song[] songs;
+    private final TermDictionary terms = new TermDictionary();
+    // term id -> ascending ids of the songs the term occurs in
+    private int[][] songIds;
+    // term id -> where each song's occurrences start in ordinals/offsets, plus one entry for the end
+    private int[][] starts;
+    // term id -> token ordinal of each occurrence, grouped by song in songIds order
+    private int[][] ordinals;
+    // term id -> character offset of each occurrence, grouped by song in songIds order
+    private int[][] offsets;
+    // term id -> bit set over the occurrences, set where a space follows the word
+    private long[][] spaceAfter;
+    // song id -> character offsets of the line feeds and carriage returns in the lowercased lyrics
+    private final int[][] lineBreaks;
+
+    /**
+     * Index every word occurrence of every song in the collection
+     *
+     * @param sc SongCollection instance containing all songs from input file
+     */
+    public PositionalIndex(SongCollection sc) {
+        songs = sc.getAllSongs();
+        lineBreaks = new int[songs.length][];
+
+        Postings[] postings = new Postings[256];
+        LyricsTokenizer tokens = new LyricsTokenizer("");
+
+        for (int songId = 0; songId < songs.length; songId++) {
+            String lyrics = songs[songId].getLyrics().toLowerCase();
+            tokens.reset(lyrics);
+            int ordinal = 0;
+
+            while (tokens.next()) {
+                if (isStandalone(lyrics, tokens.start(), tokens.end())) {
+                    int id = terms.add(lyrics, tokens.start(), tokens.end());
+
+                    if (id >= postings.length)
+                        postings = Arrays.copyOf(postings, postings.length * 2);
+                    if (postings[id] == null)
+                        postings[id] = new Postings();
+
+                    postings[id].add(songId, ordinal, tokens.start(),
+                            tokens.end() < lyrics.length() && lyrics.charAt(tokens.end()) == ' ');
+                }
+
+                ordinal++;
+            }
+
+            lineBreaks[songId] = findLineBreaks(lyrics);
+        }
+
+        int count = terms.size();
+        songIds = new int[count][];
+        starts = new int[count][];
+        ordinals = new int[count][];
+        offsets = new int[count][];
+        spaceAfter = new long[count][];
+
+        for (int id = 0; id < count; id++) {
+            Postings posting = postings[id];
+            songIds[id] = Arrays.copyOf(posting.songIds, posting.songs);
+            starts[id] = Arrays.copyOf(posting.starts, posting.songs + 1);
+            starts[id][posting.songs] = posting.occurrences;
+            ordinals[id] = Arrays.copyOf(posting.ordinals, posting.occurrences);
+            offsets[id] = Arrays.copyOf(posting.offsets, posting.occurrences);
+            spaceAfter[id] = Arrays.copyOf(posting.spaceAfter, (posting.occurrences + 63) >>> 6);
+        }
+    }
+
+    /**
+     * Growable occurrence lists for one term while the index is built
+     */
+    private static class Postings {
+        private int[] songIds = new int[4];
+        private int[] starts = new int[4];
+        private int songs;
+        private int[] ordinals = new int[4];
+        private int[] offsets = new int[4];
+        private long[] spaceAfter = new long[1];
+        private int occurrences;
+
+        /**
+         * @param songId  song the occurrence is in, never smaller than earlier song ids
+         * @param ordinal token ordinal of the occurrence
+         * @param offset  character offset of the occurrence
+         * @param space   whether a space follows the word
+         */
+        void add(int songId, int ordinal, int offset, boolean space) {
+            if (songs == 0 || songIds[songs - 1] != songId) {
+                if (songs + 1 >= songIds.length) {
+                    songIds = Arrays.copyOf(songIds, songIds.length * 2);
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+
+                songIds[songs] = songId;
+                starts[songs++] = occurrences;
+            }
+
+            if (occurrences == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, occurrences * 2);
+                offsets = Arrays.copyOf(offsets, occurrences * 2);
+            }
+            if (occurrences >>> 6 == spaceAfter.length)
+                spaceAfter = Arrays.copyOf(spaceAfter, spaceAfter.length * 2);
+
+            if (space)
+                spaceAfter[occurrences >>> 6] |= 1L << occurrences;
+            ordinals[occurrences] = ordinal;
+            offsets[occurrences++] = offset;
+        }
+    }
+
+    /**
+     * @param lyrics the lowercased lyrics
+     * @param start  index of the first character of a word
+     * @param end    index one past the last character of the word
+     * @return true if neither neighbour of the word is a letter, which is what rankPhrase() requires
+     */
+    static boolean isStandalone(String lyrics, int start, int end) {
+        return (start == 0 || !Character.isLetter(lyrics.charAt(start - 1)))
+                && (end == lyrics.length() || !Character.isLetter(lyrics.charAt(end)));
+    }
+
+    /**
+     * @param lyrics the lowercased lyrics
+     * @return ascending offsets of the line feeds and carriage returns
+     */
+    private static int[] findLineBreaks(String lyrics) {
+        int[] breaks = new int[16];
+        int count = 0;
+
+        for (int i = 0; i < lyrics.length(); i++) {
+            char c = lyrics.charAt(i);
+
+            if (c == '\n' || c == '\r') {
+                if (count == breaks.length)
+                    breaks = Arrays.copyOf(breaks, count * 2);
+                breaks[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(breaks, count);
+    }
+
+    /**
+     * @param word a lowercase word
+     * @return its term id, or -1 if it never occurs
+     */
+    public int find(String word) {
+        return terms.find(word);
+    }
+
+    /**
+     * Look up the word in text[start, end) after folding its case
+     *
+     * @param text  text holding the word
+     * @param start index of the first character of the word
+     * @param end   index one past the last character of the word
+     * @return its term id, or -1 if it never occurs
+     */
+    public int find(CharSequence text, int start, int end) {
+        return terms.find(text, start, end);
+    }
+
+    /**
+     * @return the number of songs
+     */
+    public int size() {
+        return songs.length;
+    }
+
+    /**
+     * @param term a term id
+     * @return ascending ids of the songs the term occurs in
+     */
+    public int[] songs(int term) {
+        return songIds[term];
+    }
+
+    /**
+     * @param songId a song id
+     * @return the song
+     */
+    public Song getSong(int songId) {
+        return songs[songId];
+    }
+
+    /**
+     * Ranking offsets of a term in a song: the character offset of each occurrence
+     * plus the line breaks before it, which is where rankPhrase() sees the word
+     *
+     * @param term   a term id
+     * @param songId a song id
+     * @return ascending ranking offsets, empty if the term does not occur in the song
+     */
+    public int[] rankOffsets(int term, int songId) {
+        int posting = Arrays.binarySearch(songIds[term], songId);
+
+        if (posting < 0)
+            return new int[0];
+
+        int from = starts[term][posting], to = starts[term][posting + 1];
+        int[] breaks = lineBreaks[songId];
+        int[] result = new int[to - from];
+        int before = 0;
+
+        // both lists are ascending, so one forward walk counts the breaks before each word
+        for (int i = from; i < to; i++) {
+            while (before < breaks.length && breaks[before] < offsets[term][i])
+                before++;
+
+            result[i - from] = offsets[term][i] + before;
+        }
+
+        return result;
+    }
+
+    /**
+     * Rank a phrase in a song. Gives the same value as
+     * PhraseRanking.rankPhrase(lyrics, phrase). A phrase that starts with a letter
+     * a-z is ranked from the position lists; one that starts with anything else,
+     * such as "'cause i", can't be matched word for word from them, so it is
+     * ranked from the lyrics text.
+     *
+     * rankPhrase() only takes an exact match when the first place the phrase occurs
+     * is not glued to a letter, which the position lists can't tell. It only makes a
+     * difference when the words also occur closer together than in the phrase,
+     * which a phrase of words with one character between them never allows, so
+     * only such an exact match of any other phrase is settled from the text.
+     *
+     * @param songId a song id
+     * @param words  term id of each word of the phrase, in phrase order
+     * @param phrase the phrase as typed
+     * @return the rank, or -1 if the song does not contain the words in order
+     */
+    public int rank(int songId, int[] words, String phrase) {
+        return rank(songId, words, phrase, true);
+    }
+
+    /**
+     * Rank a phrase in a song, skipping the exact match check for a song that is
+     * already known not to hold the phrase word for word, such as one without
+     * every neighbouring pair of its words
+     *
+     * @param songId     a song id
+     * @param words      term id of each word of the phrase, in phrase order
+     * @param phrase     the phrase as typed
+     * @param mayBeExact false if the song can't hold the phrase word for word
+     * @return the rank, or -1 if the song does not contain the words in order
+     */
+    public int rank(int songId, int[] words, String phrase, boolean mayBeExact) {
+        if (LyricsTokenizer.fold(phrase.toLowerCase().charAt(0)) == 0)
+            return PhraseRanking.rankPhrase(songs[songId].getLyrics(), phrase);
+
+        boolean exact = mayBeExact && containsPhrase(songId, words, phrase);
+        if (exact && isTight(phrase))
+            return phrase.length();
+
+        int[][] occurrences = new int[words.length][];
+        for (int i = 0; i < words.length; i++)
+            occurrences[i] = rankOffsets(words[i], songId);
+
+        int rank = PhraseRanking.rankOccurrences(occurrences, terms.term(words[words.length - 1]).length(),
+                phrase.length());
+
+        if (!exact || rank == phrase.length())
+            return rank;
+
+        return PhraseRanking.rankPhrase(songs[songId].getLyrics(), phrase);
+    }
+
+    /**
+     * @param phrase the phrase as typed
+     * @return true if the phrase is only its words with one character between each two,
+     * so no window holding the words in order is shorter than the phrase
+     */
+    private static boolean isTight(String phrase) {
+        String lowerPhrase = phrase.toLowerCase();
+        if (lowerPhrase.length() != phrase.length())
+            return false;
+
+        LyricsTokenizer tokens = new LyricsTokenizer(lowerPhrase);
+        int length = -1;
+        while (tokens.next())
+            length += tokens.length() + 1;
+
+        return length == lowerPhrase.length();
+    }
+
+    /**
+     * Check whether the phrase appears word for word in the song. Candidates are
+     * occurrences of the first word followed by the other words at the next token
+     * ordinals, each as far from the first word as it is in the phrase, line breaks
+     * counted as two spaces. When the phrase has one space between each two words,
+     * a candidate whose words are each followed by a space is a match, and the
+     * lyrics are not read at all. Otherwise only the candidates are compared with
+     * the lyrics text, so the lyrics of a song without one are never read.
+     *
+     * @param songId a song id
+     * @param words  term id of each word of the phrase, in phrase order
+     * @param phrase the phrase as typed, starting with a letter a-z
+     * @return true if the exact phrase occurs and is not glued to a letter on either side
+     */
+    public boolean containsPhrase(int songId, int[] words, String phrase) {
+        String lowerPhrase = phrase.toLowerCase();
+
+        if (LyricsTokenizer.fold(lowerPhrase.charAt(0)) == 0)
+            return false;
+
+        int first = words[0];
+        int posting = Arrays.binarySearch(songIds[first], songId);
+        if (posting < 0)
+            return false;
+
+        int[] wordStarts = wordStarts(lowerPhrase, words.length);
+        boolean spaced = wordStarts != null && isSpaced(lowerPhrase, wordStarts);
+        String lyrics = null;
+
+        for (int i = starts[first][posting]; i < starts[first][posting + 1]; i++) {
+            if (!followedByPhrase(songId, words, i, wordStarts, spaced))
+                continue;
+            if (spaced)
+                return true;
+
+            if (lyrics == null)
+                lyrics = songs[songId].getLyrics().toLowerCase();
+            if (PhraseRanking.phraseAt(lyrics, offsets[first][i], lowerPhrase))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param lowerPhrase the lowercase phrase
+     * @param wordCount   number of phrase words the term ids were found for
+     * @return where each word starts in the phrase, or null if the lowercase phrase
+     * splits into a different number of words, in which case the gaps are not checked
+     */
+    private static int[] wordStarts(String lowerPhrase, int wordCount) {
+        int[] result = new int[wordCount];
+        LyricsTokenizer tokens = new LyricsTokenizer(lowerPhrase);
+        int count = 0;
+
+        while (tokens.next()) {
+            if (count == wordCount)
+                return null;
+            result[count++] = tokens.start();
+        }
+
+        return count == wordCount ? result : null;
+    }
+
+    /**
+     * @param lowerPhrase the lowercase phrase
+     * @param wordStarts  where each word starts in the phrase
+     * @return true if the phrase is its words with exactly one space between each two
+     */
+    private static boolean isSpaced(String lowerPhrase, int[] wordStarts) {
+        if (!isTight(lowerPhrase))
+            return false;
+
+        for (int w = 1; w < wordStarts.length; w++) {
+            if (lowerPhrase.charAt(wordStarts[w] - 1) != ' ')
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param term       a term id
+     * @param occurrence index of one of its occurrences
+     * @return true if a space follows the word there
+     */
+    private boolean isSpaceAfter(int term, int occurrence) {
+        return (spaceAfter[term][occurrence >>> 6] & 1L << occurrence) != 0;
+    }
+
+    /**
+     * @param breaks ascending offsets of a song's line breaks
+     * @param offset character offset of a word in the lowercased lyrics
+     * @return where rankPhrase() sees the word: the offset plus the line breaks before it
+     */
+    private static int rankOffset(int[] breaks, int offset) {
+        // a word never starts on a line break, so the search always gives the insertion point
+        return offset - Arrays.binarySearch(breaks, offset) - 1;
+    }
+
+    /**
+     * @param songId     a song id
+     * @param words      term id of each word of the phrase, in phrase order
+     * @param first      index of an occurrence of the first word
+     * @param wordStarts where each word starts in the phrase, or null to check the ordinals only
+     * @param spaced     whether every word but the last must be followed by a space
+     * @return true if every later word of the phrase occurs at the following ordinals, as far
+     * from the first word as it is in the phrase
+     */
+    private boolean followedByPhrase(int songId, int[] words, int first, int[] wordStarts, boolean spaced) {
+        int[] breaks = lineBreaks[songId];
+        int ordinal = ordinals[words[0]][first];
+        int from = wordStarts == null ? 0 : rankOffset(breaks, offsets[words[0]][first]);
+
+        if (spaced && words.length > 1 && !isSpaceAfter(words[0], first))
+            return false;
+
+        for (int w = 1; w < words.length; w++) {
+            int term = words[w];
+            int posting = Arrays.binarySearch(songIds[term], songId);
+            if (posting < 0)
+                return false;
+
+            int at = Arrays.binarySearch(ordinals[term], starts[term][posting], starts[term][posting + 1],
+                    ordinal + w);
+            if (at < 0 || wordStarts != null && rankOffset(breaks, offsets[term][at]) - from != wordStarts[w])
+                return false;
+            if (spaced && w < words.length - 1 && !isSpaceAfter(term, at))
+                return false;
+        }
+
+        return true;
+    }
+}
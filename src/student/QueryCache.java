@@ -0,0 +1,582 @@
+/**
+ * File: QueryCache.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Search* classes use it after setCache(), main()
+ *                               replays queries through all four
+ * 10/18/2026 - Brendon Butler - Created shared, size bounded cache of search
+ *                               results with LRU or W-TinyLFU eviction
+ *****************************************************************************
+ */
+package student;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Cache of search results shared by all the Search* classes. Queries are
+ * normalized into keys the way the searches read them, so "The", "the" and
+ * "THE" share one entry, and so do "love baby" and "Baby, love!" for a lyrics
+ * words search.
+ *
+ * Caching is opt in: a Search* class answers search() from a cache only once
+ * one is given to it with setCache(), and one cache can be given to all four.
+ * <pre>
+ *   QueryCache cache = new QueryCache(sc, 16L &lt;&lt; 20, QueryCache.Eviction.TINY_LFU);
+ *   sbap.setCache(cache);
+ *   sbtp.setCache(cache);
+ *   Song[] songs = sbap.search("the");
+ * </pre>
+ *
+ * The cache is bounded by the estimated bytes of its keys and result arrays
+ * (the songs themselves are shared with the collection, so only references
+ * are counted). Two eviction policies are offered:
+ * <ul>
+ * <li>LRU drops the least recently used result.</li>
+ * <li>TINY_LFU (W-TinyLFU) keeps recent results in a small LRU window and
+ * the rest in a segmented LRU. A result leaving the window only displaces the
+ * main area's next victim if a frequency sketch says it was asked for more
+ * often, so a burst of one-off queries can't flush the popular ones.</li>
+ * </ul>
+ *
+ * All results are dropped when the SongCollection's version changes. The
+ * cache is thread safe; searches run outside its lock, so a slow search never
+ * holds up other queries.
+ *
+ * @author Brendon Butler
+ */
+public class QueryCache {
+    // estimated bytes of a cached entry besides its key chars and result references
+    private static final int ENTRY_OVERHEAD = 96;
+    // share of the bytes for the TINY_LFU window and, of the rest, for the protected segment
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    /**
+     * how results are chosen to be dropped when the cache is full
+     */
+    public enum Eviction {
+        LRU, TINY_LFU
+    }
+
+    /**
+     * the kinds of search whose results are cached, each with the key
+     * normalization matching how that search reads its query
+     */
+    public enum Query {
+        /**
+         * SearchByArtistPrefix.search(): the prefix is case folded
+         */
+        ARTIST_PREFIX {
+            @Override
+            String key(String query) {
+                return Song.foldCase(query);
+            }
+        },
+        /**
+         * SearchByTitlePrefix.search(): the prefix is case folded
+         */
+        TITLE_PREFIX {
+            @Override
+            String key(String query) {
+                return Song.foldCase(query);
+            }
+        },
+        /**
+         * SearchByLyricsWords.search(): only the set of words counts, and
+         * words shorter than 2 letters are ignored
+         */
+        LYRICS_WORDS {
+            @Override
+            String key(String query) {
+                TreeSet<String> words = new TreeSet<>();
+                for (String word : LyricsTokenizer.words(query)) {
+                    if (word.length() >= 2)
+                        words.add(word);
+                }
+
+                return String.join(" ", words);
+            }
+        },
+        /**
+         * SearchByLyricsPhrase.search(): the phrase is lowercased, punctuation
+         * and spacing count for the exact match and the phrase length for the rank
+         */
+        LYRICS_PHRASE {
+            @Override
+            String key(String query) {
+                String lower = query.toLowerCase();
+                // a few characters change length when lowercased, and the rank depends on the length
+                return lower.length() == query.length() ? lower : query;
+            }
+        };
+
+        /**
+         * @param query the query as typed
+         * @return the query as the search reads it
+         */
+        abstract String key(String query);
+    }
+
+    private final SongCollection sc;
+    private final long maxBytes;
+    private final Eviction eviction;
+
+    // LRU: everything. TINY_LFU: the window
+    private final Segment window;
+    // TINY_LFU only: the main area, split into probation and protected segments
+    private final Segment probation;
+    private final Segment protectedSegment;
+    private final FrequencySketch sketch;
+
+    // version of the collection the cached results were computed from
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param sc       the collection the searches run over
+     * @param maxBytes most bytes the cached keys and results may take
+     * @param eviction how to choose results to drop
+     */
+    public QueryCache(SongCollection sc, long maxBytes, Eviction eviction) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("cache needs some bytes: " + maxBytes);
+
+        this.sc = sc;
+        this.maxBytes = maxBytes;
+        this.eviction = eviction;
+        version = sc.getVersion();
+
+        if (eviction == Eviction.LRU) {
+            window = new Segment(maxBytes);
+            probation = null;
+            protectedSegment = null;
+            sketch = null;
+        } else {
+            long windowBytes = Math.max(1, (long) (maxBytes * WINDOW_SHARE));
+            long mainBytes = maxBytes - windowBytes;
+            window = new Segment(windowBytes);
+            probation = new Segment(mainBytes);
+            protectedSegment = new Segment((long) (mainBytes * PROTECTED_SHARE));
+            sketch = new FrequencySketch();
+        }
+    }
+
+    /**
+     * Get the result of a search, running it only if the result is not cached
+     *
+     * @param query  the kind of search
+     * @param text   the query as typed
+     * @param search the search to run on a miss, such as sbap::search
+     * @return the songs the search returns, in a new array the caller may change
+     */
+    public Song[] get(Query query, String text, Function<String, Song[]> search) {
+        String key = query.name() + ':' + query.key(text);
+        long startVersion;
+
+        synchronized (this) {
+            startVersion = checkVersion();
+            Song[] cached = lookup(key);
+
+            if (cached != null) {
+                hits++;
+                return cached.clone();
+            }
+
+            misses++;
+        }
+
+        Song[] result = search.apply(text);
+
+        synchronized (this) {
+            // a result computed while the collection changed may already be out of date
+            if (checkVersion() == startVersion && !contains(key))
+                add(key, result.clone());
+        }
+
+        return result;
+    }
+
+    /**
+     * Drop every result if the collection has changed since they were cached
+     *
+     * @return the current version of the collection
+     */
+    private long checkVersion() {
+        long current = sc.getVersion();
+
+        if (current != version) {
+            clear();
+            version = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * @param key a cache key
+     * @return the cached result, or null, recording the access for eviction
+     */
+    private Song[] lookup(String key) {
+        if (sketch != null)
+            sketch.increment(key.hashCode());
+
+        Song[] result = window.get(key);
+        if (result != null || eviction == Eviction.LRU)
+            return result;
+
+        result = protectedSegment.get(key);
+        if (result != null)
+            return result;
+
+        // a second hit promotes a result from probation to protected
+        result = probation.remove(key);
+        if (result != null) {
+            protectedSegment.put(key, result);
+
+            // the protected segment's least recently used results go back on probation
+            while (protectedSegment.bytes > protectedSegment.maxBytes) {
+                Map.Entry<String, Song[]> demoted = protectedSegment.eldest();
+                protectedSegment.remove(demoted.getKey());
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param key a cache key
+     * @return true if a result is cached for it, without counting an access
+     */
+    private boolean contains(String key) {
+        return window.entries.containsKey(key) || probation != null
+                && (probation.entries.containsKey(key) || protectedSegment.entries.containsKey(key));
+    }
+
+    /**
+     * Cache a result, evicting others to stay within the bytes allowed
+     *
+     * @param key    a cache key
+     * @param result the search result
+     */
+    private void add(String key, Song[] result) {
+        // a result too big for the whole cache is not worth the other results it would push out
+        if (weight(key, result) > window.maxBytes && eviction == Eviction.LRU
+                || weight(key, result) > maxBytes - window.maxBytes && eviction == Eviction.TINY_LFU) {
+            return;
+        }
+
+        window.put(key, result);
+
+        while (window.bytes > window.maxBytes) {
+            Map.Entry<String, Song[]> candidate = window.eldest();
+            window.remove(candidate.getKey());
+
+            if (eviction == Eviction.LRU) {
+                evictions++;
+            } else {
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+    }
+
+    /**
+     * TinyLFU admission: a result leaving the window joins the main area if
+     * there is room, else it must have been asked for more often than each
+     * result it would push out of probation
+     *
+     * @param key    key of the result leaving the window
+     * @param result the result
+     */
+    private void admit(String key, Song[] result) {
+        long size = weight(key, result);
+        int frequency = sketch.frequency(key.hashCode());
+
+        while (probation.bytes + protectedSegment.bytes + size > probation.maxBytes) {
+            Segment victims = probation.isEmpty() ? protectedSegment : probation;
+            Map.Entry<String, Song[]> victim = victims.eldest();
+
+            if (frequency <= sketch.frequency(victim.getKey().hashCode())) {
+                evictions++;
+                return;
+            }
+
+            victims.remove(victim.getKey());
+            evictions++;
+        }
+
+        probation.put(key, result);
+    }
+
+    /**
+     * @param key    a cache key
+     * @param result a search result
+     * @return estimated bytes of the entry: overhead, key chars and result references
+     */
+    private static long weight(String key, Song[] result) {
+        return ENTRY_OVERHEAD + 2L * key.length() + 16 + 4L * result.length;
+    }
+
+    /**
+     * drop every cached result, the metrics are kept
+     */
+    public synchronized void clear() {
+        window.clear();
+        if (probation != null) {
+            probation.clear();
+            protectedSegment.clear();
+        }
+    }
+
+    /**
+     * @return the number of results cached
+     */
+    public synchronized int size() {
+        return window.entries.size()
+                + (probation == null ? 0 : probation.entries.size() + protectedSegment.entries.size());
+    }
+
+    /**
+     * @return estimated bytes taken by the cached keys and results
+     */
+    public synchronized long getBytes() {
+        return window.bytes + (probation == null ? 0 : probation.bytes + protectedSegment.bytes);
+    }
+
+    /**
+     * @return the number of queries answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of queries that had to be searched
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of results dropped, or not admitted, to stay within the bytes allowed
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the share of queries answered from the cache, 0 before any query
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * @return the metrics on one line
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%s cache: %d results, %d of %d bytes, hits=%d misses=%d (%.1f%%) evictions=%d",
+                eviction, size(), getBytes(), maxBytes, hits, misses, 100 * getHitRate(), evictions);
+    }
+
+    /**
+     * An LRU ordered run of entries with a byte count
+     */
+    private static class Segment {
+        final LinkedHashMap<String, Song[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final long maxBytes;
+        long bytes;
+
+        /**
+         * @param maxBytes bytes the segment should hold at most
+         */
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @param key a cache key
+         * @return its result, now the most recently used, or null
+         */
+        Song[] get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * @param key    a cache key not in the segment
+         * @param result its result, added as the most recently used
+         */
+        void put(String key, Song[] result) {
+            entries.put(key, result);
+            bytes += weight(key, result);
+        }
+
+        /**
+         * @param key a cache key
+         * @return its result, or null if it was not in the segment
+         */
+        Song[] remove(String key) {
+            Song[] result = entries.remove(key);
+            if (result != null)
+                bytes -= weight(key, result);
+
+            return result;
+        }
+
+        /**
+         * @return the least recently used entry, the segment must not be empty
+         */
+        Map.Entry<String, Song[]> eldest() {
+            Iterator<Map.Entry<String, Song[]>> itr = entries.entrySet().iterator();
+            return itr.next();
+        }
+
+        /**
+         * @return true if the segment holds nothing
+         */
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        /**
+         * drop every entry
+         */
+        void clear() {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch of how often keys have been asked for: four rows of
+     * 4 bit counters, sixteen to a long. Every counter is halved once enough
+     * accesses have been counted, so old popularity fades.
+     */
+    private static class FrequencySketch {
+        private static final int ROW_LONGS = 1 << 10;
+        private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+        private static final int RESET_AFTER = 10 * ROW_LONGS * 16;
+
+        private final long[][] rows = new long[SEEDS.length][ROW_LONGS];
+        private int additions;
+
+        /**
+         * @param row  a row
+         * @param hash a key hash
+         * @return index of the key's counter in the row, as the long times 16 plus the nibble
+         */
+        private static int counter(int row, int hash) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (mixed >>> 40) & (ROW_LONGS * 16 - 1);
+        }
+
+        /**
+         * @param hash a key hash
+         */
+        void increment(int hash) {
+            for (int row = 0; row < rows.length; row++) {
+                int counter = counter(row, hash);
+                int shift = (counter & 15) << 2;
+                long word = rows[row][counter >>> 4];
+
+                if (((word >>> shift) & 15) < 15)
+                    rows[row][counter >>> 4] = word + (1L << shift);
+            }
+
+            if (++additions == RESET_AFTER)
+                halve();
+        }
+
+        /**
+         * @param hash a key hash
+         * @return estimated accesses of the key, at most 15
+         */
+        int frequency(int hash) {
+            int frequency = 15;
+
+            for (int row = 0; row < rows.length; row++) {
+                int counter = counter(row, hash);
+                frequency = Math.min(frequency, (int) (rows[row][counter >>> 4] >>> ((counter & 15) << 2)) & 15);
+            }
+
+            return frequency;
+        }
+
+        /**
+         * halve every counter
+         */
+        private void halve() {
+            for (long[] row : rows) {
+                for (int i = 0; i < row.length; i++)
+                    row[i] = (row[i] >>> 1) & 0x7777777777777777L;
+            }
+
+            additions /= 2;
+        }
+    }
+
+    /**
+     * testing method for this unit: replays the same queries through all four
+     * Search* classes sharing one cache, so only the first round searches
+     * @param args command line arguments set in Project Properties -
+     * the first argument is the data file name, the second the number of
+     * rounds and the third LRU or TINY_LFU
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: prog songfile [rounds] [LRU|TINY_LFU]");
+            return;
+        }
+
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Eviction eviction = args.length > 2 ? Eviction.valueOf(args[2]) : Eviction.TINY_LFU;
+
+        SongCollection sc = new SongCollection(args[0]);
+        QueryCache cache = new QueryCache(sc, 16L << 20, eviction);
+        SearchByArtistPrefix sbap = new SearchByArtistPrefix(sc);
+        SearchByTitlePrefix sbtp = new SearchByTitlePrefix(sc);
+        SearchByLyricsWords sblw = new SearchByLyricsWords(sc);
+        SearchByLyricsPhrase sblp = new SearchByLyricsPhrase(sc);
+        sbap.setCache(cache);
+        sbtp.setCache(cache);
+        sblw.setCache(cache);
+        sblp.setCache(cache);
+
+        String[] prefixes = {"the", "a", "be", "Love", "ZZ"};
+        String[] words = {"love baby", "Baby, love!", "kill you", "dance tonight"};
+        String[] phrases = {"All you need is love", "she loves you", "baby love"};
+
+        for (int round = 1; round <= rounds; round++) {
+            Instant startTime = Instant.now();
+            int found = 0;
+
+            for (String prefix : prefixes) {
+                found += sbap.search(prefix).length + sbtp.search(prefix).length;
+            }
+            for (String query : words) {
+                found += sblw.search(query).length;
+            }
+            for (String phrase : phrases) {
+                found += sblp.search(phrase).length;
+            }
+
+            Instant endTime = Instant.now();
+            System.out.printf("round %d: %d songs found in %dms%n", round, found,
+                    Duration.between(startTime, endTime).toMillis());
+        }
+
+        System.out.println(cache);
+    }
+}
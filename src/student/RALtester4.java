@@ -0,0 +1,279 @@
+/**
+ * RALtester4.java
+ * written by Brendon Butler
+ * testing code for the RaggedArrayList changes made after Part 5: remove(),
+ * copyWith() and copyWithout(), subList() and view().
+ * Each test runs random operations on a RaggedArrayList and on a sorted
+ * ArrayList holding the same items, and counts the results that differ.
+ * You can give a seed and the number of operations on the command line.
+ */
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class RALtester4 {
+
+    /**
+     * compares only the first character, so items can be equal by the
+     * comparator without being equal, which is what remove() has to tell apart
+     */
+    public static class FirstCharCmp extends CmpCnt
+                                     implements Comparator<String> {
+
+        public int compare(String s1, String s2) {
+            cmpCnt++;
+            return s1.charAt(0) - s2.charAt(0);
+        }
+    }
+
+    private static final Comparator<String> COMP = new FirstCharCmp();
+
+    /**
+     * @param r a random number generator
+     * @return an item such as "k17", there are 26 first characters
+     */
+    private static String item(Random r) {
+        return (char) ('a' + r.nextInt(26)) + Integer.toString(r.nextInt(40));
+    }
+
+    /**
+     * add to the reference list after any items equal by the comparator, as
+     * RaggedArrayList.add() does
+     */
+    private static void add(List<String> ref, String item) {
+        int i = ref.size();
+        while (i > 0 && COMP.compare(ref.get(i - 1), item) > 0) {
+            i--;
+        }
+        ref.add(i, item);
+    }
+
+    /**
+     * @return the number of ways the list differs from the reference, its
+     * items in order and its size, plus any level 2 array left empty or full
+     */
+    private static int check(RaggedArrayList<String> ralist, List<String> ref) {
+        int bad = ralist.size() == ref.size() ? 0 : 1;
+
+        String[] a = ralist.toArray(new String[0]);
+        if (!Arrays.asList(a).equals(ref)) {
+            bad++;
+        }
+
+        for (int i1 = 0; i1 < ralist.l1NumUsed; i1++) {
+            RaggedArrayList<String>.L2Array l2array
+                    = (RaggedArrayList<String>.L2Array) (ralist.l1Array[i1]);
+            // can't seem to cast to array of strings
+            Object[] items = (Object[]) (l2array.items);
+            if (l2array.numUsed == items.length
+                    || l2array.numUsed == 0 && ralist.l1NumUsed > 1) {
+                bad++;
+            }
+        }
+
+        return bad;
+    }
+
+    /**
+     * adds and removes at random, removing both items that are there and
+     * items that are not, then removes every third item with the iterator
+     */
+    private static int testRemove(Random r, int operations) {
+        RaggedArrayList<String> ralist = new RaggedArrayList<String>(COMP);
+        List<String> ref = new ArrayList<String>();
+        int bad = 0;
+
+        for (int op = 0; op < operations; op++) {
+            String s = item(r);
+            // grow for the first half, shrink for the second
+            if (r.nextInt(operations) > op) {
+                ralist.add(s);
+                add(ref, s);
+            } else if (ralist.remove(s) != ref.remove(s)) {
+                bad++;
+            }
+
+            if (op % 97 == 0) {
+                bad += check(ralist, ref);
+            }
+            if (ralist.indexOf(s) != ref.indexOf(s)) {
+                bad++;
+            }
+        }
+
+        Iterator<String> itr = ralist.iterator();
+        Iterator<String> refItr = ref.iterator();
+        for (int i = 0; itr.hasNext(); i++) {
+            if (!itr.next().equals(refItr.next())) {
+                bad++;
+            }
+            if (i % 3 == 0) {
+                itr.remove();
+                refItr.remove();
+            }
+        }
+
+        return bad + check(ralist, ref);
+    }
+
+    /**
+     * builds a chain of versions with copyWith() and copyWithout(), then
+     * checks that every version still holds what it held when it was made
+     */
+    private static int testCopy(Random r, int operations) {
+        List<RaggedArrayList<String>> versions = new ArrayList<RaggedArrayList<String>>();
+        List<List<String>> refs = new ArrayList<List<String>>();
+        RaggedArrayList<String> ralist = new RaggedArrayList<String>(COMP);
+        List<String> ref = new ArrayList<String>();
+        int bad = 0;
+
+        for (int op = 0; op < operations; op++) {
+            String s = item(r);
+            ref = new ArrayList<String>(ref);
+
+            if (r.nextInt(operations) > op / 2) {
+                ralist = ralist.copyWith(s);
+                add(ref, s);
+            } else {
+                RaggedArrayList<String> next = ralist.copyWithout(s);
+                // an item that is not there gives back the same list
+                if ((next != ralist) != ref.remove(s)) {
+                    bad++;
+                }
+                ralist = next;
+            }
+
+            if (op % 50 == 0) {
+                versions.add(ralist);
+                refs.add(ref);
+            }
+        }
+
+        for (int i = 0; i < versions.size(); i++) {
+            bad += check(versions.get(i), refs.get(i));
+        }
+
+        return bad + check(ralist, ref);
+    }
+
+    /**
+     * compares random ranges read with subList() and view(), including views
+     * of views, with the same range of the reference
+     */
+    private static int testRanges(Random r, int operations) {
+        RaggedArrayList<String> ralist = new RaggedArrayList<String>(COMP);
+        List<String> ref = new ArrayList<String>();
+        int bad = 0;
+
+        for (int op = 0; op < operations; op++) {
+            String s = item(r);
+            ralist.add(s);
+            add(ref, s);
+        }
+
+        for (int test = 0; test < operations / 10; test++) {
+            String from = item(r);
+            String to = item(r);
+            // subList() of a backwards range runs on to the end of the list, as it always has
+            if (COMP.compare(from, to) > 0) {
+                String swap = from;
+                from = to;
+                to = swap;
+            }
+            List<String> range = new ArrayList<String>();
+            for (String s : ref) {
+                if (COMP.compare(s, from) >= 0 && COMP.compare(s, to) < 0) {
+                    range.add(s);
+                }
+            }
+
+            // subList() is a list of its own
+            RaggedArrayList<String> sublist = ralist.subList(from, to);
+            bad += check(sublist, range);
+            sublist.add(from);
+            if (ralist.size() != ref.size()) {
+                bad++;
+            }
+
+            RaggedArrayList<String>.View view = ralist.view(from, to);
+            if (view.size() != range.size()
+                    || !Arrays.asList(view.toArray(new String[0])).equals(range)) {
+                bad++;
+            }
+            for (int i = 0; i < range.size(); i++) {
+                if (!view.get(i).equals(range.get(i))) {
+                    bad++;
+                }
+            }
+
+            int start = r.nextInt(range.size() + 1);
+            List<String> rest = new ArrayList<String>();
+            for (Iterator<String> itr = view.iterator(start); itr.hasNext();) {
+                rest.add(itr.next());
+            }
+            if (!rest.equals(range.subList(start, range.size()))) {
+                bad++;
+            }
+
+            String s = item(r);
+            if (view.indexOf(s) != range.indexOf(s)) {
+                bad++;
+            }
+
+            String from2 = item(r);
+            String to2 = item(r);
+            List<String> inner = new ArrayList<String>();
+            for (String x : range) {
+                if (COMP.compare(x, from2) >= 0 && COMP.compare(x, to2) < 0) {
+                    inner.add(x);
+                }
+            }
+            if (!Arrays.asList(view.view(from2, to2).toArray(new String[0])).equals(inner)) {
+                bad++;
+            }
+        }
+
+        return bad;
+    }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2022;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        System.out.println("testing routine for RaggedArrayList changes");
+        System.out.println("seed " + seed + ", " + operations + " operations per test");
+
+        String order = "qwertyuiopasdfghjklzxcvbnmaeiou";  // as RALtester3
+        RaggedArrayList<String> ralist = new RaggedArrayList<String>(new RALtester3.StringCmp());
+        for (int i = 0; i < order.length(); i++) {
+            ralist.add(order.substring(i, i + 1));
+        }
+        for (String s : "eiaoufghjkl".split("")) {
+            ralist.remove(s);
+        }
+        System.out.println("TEST: after removing e i a o u f g h j k l - data structure dump");
+        RALtester3.dump(ralist);
+
+        Random r = new Random(seed);
+        int bad = 0, failures;
+
+        failures = testRemove(r, operations);
+        System.out.println("TEST: remove and Itr.remove -> " + failures + " mismatches");
+        bad += failures;
+
+        failures = testCopy(r, operations);
+        System.out.println("TEST: copyWith and copyWithout -> " + failures + " mismatches");
+        bad += failures;
+
+        failures = testRanges(r, operations);
+        System.out.println("TEST: subList and view -> " + failures + " mismatches");
+        bad += failures;
+
+        System.out.println(bad == 0 ? "all tests passed" : bad + " mismatches in all");
+    }
+
+}
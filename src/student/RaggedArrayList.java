@@ -3,6 +3,32 @@
  * ****************************************************************************
  *                           Revision History
  * ****************************************************************************
+ * 10/18/2026 - Brendon Butler - subList() appends the range without comparing
+ *                               items, add() and subList() share insert()
+ * 10/18/2026 - Brendon Butler - block starts dropped on every change instead of
+ *                               checked against modCount, readers of a list
+ *                               being changed are no longer supported
+ * 10/18/2026 - Brendon Butler - subList() copies the range again, as RALtester3
+ *                               dumps its blocks; view() returns the range view
+ *                               as a type of its own
+ * 10/18/2026 - Brendon Butler - BlockSizingPolicy and getStats(), stats() no
+ *                               longer casts to RaggedArrayList<Song>
+ * 10/18/2026 - Brendon Butler - copyWith() and copyWithout() copy on write
+ *                               changes that share untouched level 2 arrays
+ * 10/18/2026 - Brendon Butler - toArray() and copyRange() copy level 2 array
+ *                               slices straight into the result
+ * 10/18/2026 - Brendon Butler - spliterator() that splits on level 2 array
+ *                               boundaries, stream() and parallelStream()
+ * 10/18/2026 - Brendon Butler - remove() and Itr.remove() with merging and
+ *                               borrowing between level 2 arrays
+ * 10/18/2026 - Brendon Butler - modCount so ConcurrentRaggedArrayList readers
+ *                               never cache a half changed list's block starts
+ * 10/18/2026 - Brendon Butler - get(), indexOf() and iterator(fromIndex) using
+ *                               prefix sums of the level 2 array sizes
+ * 10/18/2026 - Brendon Butler - subList() returns a view over the blocks
+ * 10/18/2026 - Brendon Butler - fromSorted() bulk loading
+ * 10/18/2026 - Brendon Butler - binary search at both levels in findFront()
+ *                               and findEnd()
  * 03/08/2022 - Brendon Butler - revising (subList()) to meet criteria
  * 03/07/2022 - Brendon Butler - completing Part 5 - (subList()) & analysis
  * 03/02/2022 - Brendon Butler - implementing Part 5 - Task #1 (contains())
@@ -20,10 +46,13 @@
  */
 package student;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * * 
@@ -44,6 +73,11 @@ public class RaggedArrayList<E> implements Iterable<E> {
     // must be even so when split get two equal pieces
 
     private static final int MINIMUM_SIZE = 4;
+    /**
+     * fill factor used by fromSorted() when none is given, blocks are filled
+     * as far as they can be while leaving the one free slot every block keeps
+     */
+    public static final double DEFAULT_FILL_FACTOR = 1.0;
     /**
      * The total number of elements in the entire RaggedArrayList
      */
@@ -60,6 +94,22 @@ public class RaggedArrayList<E> implements Iterable<E> {
      * a Comparator object so we can use compare for Song
      */
     private Comparator<E> comp;
+    /**
+     * index of the first item of each used level 2 array, rebuilt on demand
+     * by positional lookups and dropped by every change. volatile so a
+     * copyWith() version read by many threads only ever shows them a fully
+     * built array. Only a list that no one is changing may be read from
+     * several threads, which is what copyWith() and copyWithout() give.
+     */
+    private volatile int[] blockStarts;
+    /**
+     * decides when level 2 arrays grow, split and rebalance
+     */
+    private BlockSizingPolicy policy = BlockSizingPolicy.LEVEL_ONE_LENGTH;
+    /**
+     * structural changes so far, reported by getStats()
+     */
+    private long splits, grows, merges, borrows;
 
     /**
      * create an empty list always have at least 1 second level array even if
@@ -77,6 +127,103 @@ public class RaggedArrayList<E> implements Iterable<E> {
         comp = c;
     }
 
+    /**
+     * create a list sharing the level 2 arrays of another, with its own copy
+     * of the level 1 array
+     *
+     * @param shared the list to share with
+     */
+    private RaggedArrayList(RaggedArrayList<E> shared) {
+        comp = shared.comp;
+        size = shared.size;
+        l1Array = shared.l1Array.clone();
+        l1NumUsed = shared.l1NumUsed;
+        policy = shared.policy;
+        splits = shared.splits;
+        grows = shared.grows;
+        merges = shared.merges;
+        borrows = shared.borrows;
+    }
+
+    /**
+     * build a list straight from items that are already in order, without
+     * searching or shifting anything (one linear pass over the items)
+     *
+     * Blocks get a power of two capacity near the square root of the size,
+     * like the ones add() grows into, and are filled to the fill factor.
+     * Every block keeps at least one free slot, as add() always does.
+     *
+     * @author Brendon Butler
+     * @param <E>        the item type
+     * @param sorted     items in ascending order according to the comparator,
+     *                   equal items in the order they should be kept
+     * @param c          a comparator object
+     * @param fillFactor fraction of each block to fill, in (0, 1]
+     * @return a list holding the items
+     */
+    public static <E> RaggedArrayList<E> fromSorted(E[] sorted, Comparator<E> c, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1))
+            throw new IllegalArgumentException("fill factor must be in (0, 1]: " + fillFactor);
+
+        RaggedArrayList<E> list = new RaggedArrayList<>(c);
+        if (sorted.length == 0)
+            return list;
+
+        int capacity = MINIMUM_SIZE;
+        while ((long) capacity * capacity < sorted.length)
+            capacity *= 2;
+
+        int perBlock = Math.max(1, Math.min(capacity - 1, (int) (capacity * fillFactor)));
+        int blocks = (sorted.length + perBlock - 1) / perBlock;
+
+        // the level 1 array always has a free slot and is never shorter than a block
+        int l1Length = capacity;
+        while (l1Length <= blocks)
+            l1Length *= 2;
+
+        list.l1Array = new Object[l1Length];
+        for (int i1 = 0; i1 < blocks; i1++) {
+            RaggedArrayList<E>.L2Array l2Array = list.new L2Array(capacity);
+            int from = i1 * perBlock;
+            l2Array.numUsed = Math.min(perBlock, sorted.length - from);
+            System.arraycopy(sorted, from, l2Array.items, 0, l2Array.numUsed);
+            list.l1Array[i1] = l2Array;
+        }
+
+        list.l1NumUsed = blocks;
+        list.size = sorted.length;
+        return list;
+    }
+
+    /**
+     * build a list from items that are already in order, using the default
+     * fill factor
+     *
+     * @param <E>    the item type
+     * @param sorted items in ascending order according to the comparator
+     * @param c      a comparator object
+     * @return a list holding the items
+     */
+    public static <E> RaggedArrayList<E> fromSorted(E[] sorted, Comparator<E> c) {
+        return fromSorted(sorted, c, DEFAULT_FILL_FACTOR);
+    }
+
+    /**
+     * build a list from items in any order: a copy of the items is sorted with
+     * Arrays.parallelSort(), which is stable, so equal items keep their order
+     * just as if they had been add()ed one at a time
+     *
+     * @param <E>   the item type
+     * @param items the items, left unchanged
+     * @param c     a comparator object
+     * @return a list holding the items
+     */
+    public static <E> RaggedArrayList<E> fromUnsorted(E[] items, Comparator<E> c) {
+        E[] sorted = Arrays.copyOf(items, items.length);
+        Arrays.parallelSort(sorted, c);
+        return fromSorted(sorted, c);
+    }
+
     /**
      * ***********************************************************
      * nested class for 2nd level arrays 
@@ -125,6 +272,7 @@ public class RaggedArrayList<E> implements Iterable<E> {
      * (DONE - Do not change)
      */
     public void clear() {
+        blockStarts = null;
         size = 0;
         // clear all but first l2 array
         Arrays.fill(l1Array, 1, l1Array.length, null);
@@ -204,6 +352,10 @@ public class RaggedArrayList<E> implements Iterable<E> {
     /**
      * find 1st matching entry
      *
+     * Both levels are binary searched: first for the block whose last item is
+     * the first one not less than the item, then for the first item in that
+     * block not less than the item, so a lookup takes O(log N) comparisons.
+     *
      * @author Brendon Butler
      * Revised By: Lydia Clark & Brendon Butler
      * @param item the thing we are searching for a place to put.
@@ -212,28 +364,32 @@ public class RaggedArrayList<E> implements Iterable<E> {
      * level 2 array
      */
     public ListLoc findFront(E item) {
-        // TO DO in part 3
         int i1 = 0;  // current L1Array index
         int i2 = 0;  // current L2Array index
         // if the list is empty, skip and return the list location as (0, 0)
         if (size > 0) {
-            L2Array l2Array = (L2Array) l1Array[i1];
+            // find the first L2 array whose last value is not less than the input, else the last L2 array
+            int high = l1NumUsed - 1;
+            while (i1 < high) {
+                int middle = (i1 + high) >>> 1;
+                L2Array l2Array = (L2Array) l1Array[middle];
 
-            // Find the first L2 array that's first value is greater than the input
-            while (i1 < l1NumUsed - 1 && comp.compare(item, l2Array.items[l2Array.numUsed - 1]) > 0) {
-                i1++;
-                l2Array = (L2Array) l1Array[i1];
+                if (comp.compare(item, l2Array.items[l2Array.numUsed - 1]) > 0)
+                    i1 = middle + 1;
+                else
+                    high = middle;
             }
 
-            // find the first instance of the input in the L2 array
-            while (i2 < l2Array.numUsed && comp.compare(item, l2Array.items[i2]) > 0) {
-                i2++;
-            }
+            // find the first instance of the input in the L2 array, or the first greater value
+            L2Array l2Array = (L2Array) l1Array[i1];
+            high = l2Array.numUsed;
+            while (i2 < high) {
+                int middle = (i2 + high) >>> 1;
 
-            // adjust the L1 value back by 1 if the comparison is not equal to 0
-            if (i1 > 0 && i2 == 0 && comp.compare(item, l2Array.items[i2]) != 0) {
-                i1--;
-                i2 = l2Array.numUsed - 1;
+                if (comp.compare(item, l2Array.items[middle]) > 0)
+                    i2 = middle + 1;
+                else
+                    high = middle;
             }
         }
 
@@ -246,28 +402,41 @@ public class RaggedArrayList<E> implements Iterable<E> {
      * the index of the next larger item this is the position to add a new 
      * entry this might be an unused slot at the end of a level 2 array
      *
+     * Both levels are binary searched: first for the last block whose first
+     * item is not greater than the item, then for the first item in that block
+     * greater than the item, so a lookup takes O(log N) comparisons.
+     *
      * @author Lydia Clark
+     * Revised By: Brendon Butler
      * @param item the thing we are searching for a place to put.
      * @return the location where this item should go
      */
     public ListLoc findEnd(E item) {
-        // TO DO in part 3
         int i1 = 0;  // current L1Array index
         int i2 = 0;  // current L2Array index
         // if the list is empty, skip and return the list location as (0, 0)
         if (size > 0) {
-            i1 = l1NumUsed - 1;
-            L2Array l2Array = (L2Array)l1Array[l1NumUsed - 1];
+            // find the last L2 array whose first value is not greater than the input, else the first L2 array
+            int high = l1NumUsed - 1;
+            while (i1 < high) {
+                int middle = (i1 + high + 1) >>> 1;
 
-            // Find the last L2 array that's first value is greater than the input
-            while (i1 > 0 && comp.compare(item, l2Array.items[0]) < 0) {
-                i1--;
-                l2Array = (L2Array)l1Array[i1];
+                if (comp.compare(item, ((L2Array) l1Array[middle]).items[0]) >= 0)
+                    i1 = middle;
+                else
+                    high = middle - 1;
             }
 
-            // find the last instance of the input in the L2 array
-            while (i2 < l2Array.numUsed && comp.compare(item, l2Array.items[i2]) >= 0) {
-                i2++;
+            // find the first value in the L2 array that is greater than the input
+            L2Array l2Array = (L2Array) l1Array[i1];
+            high = l2Array.numUsed;
+            while (i2 < high) {
+                int middle = (i2 + high) >>> 1;
+
+                if (comp.compare(item, l2Array.items[middle]) >= 0)
+                    i2 = middle + 1;
+                else
+                    high = middle;
             }
 
             // adjust the L1 value forward by 1 if there is another L2 array ahead of the current one
@@ -292,7 +461,21 @@ public class RaggedArrayList<E> implements Iterable<E> {
      */
     public boolean add(E item) {
         // TO DO in part 4 and NOT BEFORE
-        ListLoc location = findEnd(item);
+        insert(findEnd(item), item);
+
+        // always return true for add method as it will always be able to expand and add items if needed,
+        return true;
+    }
+
+    /**
+     * insert an item at a location, growing or splitting its level 2 array
+     * if that fills it
+     *
+     * @param location where the item goes, as found by findEnd()
+     * @param item     the item to insert
+     */
+    private void insert(ListLoc location, E item) {
+        blockStarts = null;
         L2Array l2Array = (L2Array) l1Array[location.level1Index];
 
         // move the items following the insertion index over by 1
@@ -309,11 +492,12 @@ public class RaggedArrayList<E> implements Iterable<E> {
         // if the L2 array is full, resize or split the array
         if (l2Array.numUsed == l2Array.items.length) {
             /*  If l2Array's length is less than the max length
-                determined by the l1Array length, double the l2Array
+                determined by the sizing policy, double the l2Array
                 else split the array */
-            if (l2Array.items.length < l1Array.length) {
+            if (l2Array.items.length < policy.maxCapacity(size, l1Array.length)) {
                 l2Array.items = Arrays.copyOf(l2Array.items,
                         l2Array.items.length * 2);
+                grows++;
             } else {
                 int l1Index = location.level1Index + 1;
                 int halfL2ArrayLength = l2Array.items.length / 2;
@@ -338,6 +522,7 @@ public class RaggedArrayList<E> implements Iterable<E> {
 
                 // increment l1NumUsed
                 l1NumUsed++;
+                splits++;
 
                 // double length of l1Array if full
                 if (l1NumUsed == l1Array.length) {
@@ -345,11 +530,211 @@ public class RaggedArrayList<E> implements Iterable<E> {
                 }
             }
         }
+    }
 
-        // always return true for add method as it will always be able to expand and add items if needed,
+    /**
+     * remove the first item equal to the given one. Its level 2 array is
+     * shifted down over it, and if that leaves the array less than a quarter
+     * full it is merged with a neighbour or borrows items from it.
+     *
+     * @author Brendon Butler
+     * @param item the thing to remove
+     * @return true if an equal item was found and removed
+     */
+    public boolean remove(E item) {
+        ListLoc loc = findEqual(item);
+
+        if (loc == null) {
+            return false;
+        }
+
+        removeAt(loc);
         return true;
     }
 
+    /**
+     * @param item the thing we are looking for.
+     * @return location of the first item equal to it, or null if it is not in the list
+     */
+    private ListLoc findEqual(E item) {
+        ListLoc loc = findFront(item);
+
+        // equal by comparator does not have to mean equal, so check each of those in turn
+        while (loc.level1Index < l1NumUsed) {
+            L2Array l2Array = (L2Array) l1Array[loc.level1Index];
+
+            if (loc.level2Index == l2Array.numUsed) {
+                loc.level1Index++;
+                loc.level2Index = 0;
+                continue;
+            }
+
+            E candidate = l2Array.items[loc.level2Index];
+            if (comp.compare(item, candidate) != 0) {
+                break;
+            }
+
+            if (item.equals(candidate)) {
+                return loc;
+            }
+
+            loc.level2Index++;
+        }
+
+        return null;
+    }
+
+    /**
+     * copy on write add: returns a new list that also holds the item and
+     * leaves this one as it is. The new list shares every level 2 array with
+     * this one except the one the item goes into, so only that array and the
+     * level 1 array are copied, O(sqrt N) work however large the list is.
+     *
+     * Lists that share arrays must only be changed through copyWith() and
+     * copyWithout(), which is what lets readers use any of them without locks.
+     *
+     * @author Brendon Butler
+     * @param item the item to add after any equal items
+     * @return a new list holding this list's items and the item
+     */
+    public RaggedArrayList<E> copyWith(E item) {
+        RaggedArrayList<E> copy = new RaggedArrayList<>(this);
+
+        // add() only changes the array the item goes into, splitting puts half of it in a new one
+        copy.unshare(findEnd(item).level1Index);
+        copy.add(item);
+        return copy;
+    }
+
+    /**
+     * copy on write remove: returns a new list without the first item equal
+     * to the given one and leaves this one as it is. Only the level 1 array,
+     * the item's level 2 array and the neighbours it could be merged with or
+     * borrow from are copied.
+     *
+     * @author Brendon Butler
+     * @param item the thing to remove
+     * @return a new list without the item, or this list if it holds no equal item
+     */
+    public RaggedArrayList<E> copyWithout(E item) {
+        ListLoc loc = findEqual(item);
+
+        if (loc == null) {
+            return this;
+        }
+
+        RaggedArrayList<E> copy = new RaggedArrayList<>(this);
+        for (int i1 = loc.level1Index - 1; i1 <= loc.level1Index + 1; i1++) {
+            copy.unshare(i1);
+        }
+
+        copy.removeAt(loc);
+        return copy;
+    }
+
+    /**
+     * give this list its own copy of a level 2 array so it can be changed
+     *
+     * @param i1 level 1 index of the array, ignored if no array is used there
+     */
+    private void unshare(int i1) {
+        if (i1 < 0 || i1 >= l1NumUsed) {
+            return;
+        }
+
+        L2Array shared = (L2Array) l1Array[i1];
+        L2Array own = new L2Array(0);
+        own.items = shared.items.clone();
+        own.numUsed = shared.numUsed;
+        l1Array[i1] = own;
+    }
+
+    /**
+     * remove the item at a location and rebalance its level 2 array
+     *
+     * @param loc location of an item
+     */
+    private void removeAt(ListLoc loc) {
+        blockStarts = null;
+        L2Array l2Array = (L2Array) l1Array[loc.level1Index];
+
+        // move the items following the removed one down by 1, the freed slot must be null for Itr
+        System.arraycopy(l2Array.items, loc.level2Index + 1,
+                l2Array.items, loc.level2Index,
+                l2Array.numUsed - loc.level2Index - 1);
+        l2Array.items[--l2Array.numUsed] = null;
+        size--;
+
+        if (l1NumUsed == 1) {
+            // the only level 2 array may be empty, but gives back space it no longer needs
+            if (l2Array.items.length > MINIMUM_SIZE && l2Array.numUsed < l2Array.items.length / 4) {
+                l2Array.items = Arrays.copyOf(l2Array.items, l2Array.items.length / 2);
+            }
+        } else if (l2Array.numUsed == 0 || l2Array.numUsed < policy.rebalanceBelow(l2Array.items.length)) {
+            // an empty array would break the searches, so it is never left behind
+            rebalance(loc.level1Index);
+        }
+    }
+
+    /**
+     * merge an under full level 2 array with a neighbour if both fit in one
+     * array with a quarter of it to spare, else move items across until the
+     * two hold the same number. Merging halves the level 1 array once it is
+     * less than a quarter used, so it shrinks back as the list does.
+     *
+     * @param i1 level 1 index of the under full array, with l1NumUsed > 1
+     */
+    private void rebalance(int i1) {
+        // pair it with the next array, or the previous one if it is the last
+        int left = i1 < l1NumUsed - 1 ? i1 : i1 - 1;
+        L2Array first = (L2Array) l1Array[left];
+        L2Array second = (L2Array) l1Array[left + 1];
+        int total = first.numUsed + second.numUsed;
+        int capacity = Math.max(first.items.length, second.items.length);
+
+        if (total < capacity - capacity / 4) {
+            // move everything into the first array and drop the second
+            if (first.items.length < capacity) {
+                first.items = Arrays.copyOf(first.items, capacity);
+            }
+            System.arraycopy(second.items, 0, first.items, first.numUsed, second.numUsed);
+            first.numUsed = total;
+            merges++;
+
+            System.arraycopy(l1Array, left + 2, l1Array, left + 1, l1NumUsed - left - 2);
+            l1Array[--l1NumUsed] = null;
+
+            if (l1Array.length > MINIMUM_SIZE && l1NumUsed < l1Array.length / 4) {
+                l1Array = Arrays.copyOf(l1Array, l1Array.length / 2);
+            }
+            return;
+        }
+
+        // both keep a free slot as long as each is as long as the longer one
+        first.items = first.items.length < capacity ? Arrays.copyOf(first.items, capacity) : first.items;
+        second.items = second.items.length < capacity ? Arrays.copyOf(second.items, capacity) : second.items;
+        int firstCount = total / 2;
+        borrows++;
+
+        if (first.numUsed < firstCount) {
+            // borrow from the front of the second array
+            int moved = firstCount - first.numUsed;
+            System.arraycopy(second.items, 0, first.items, first.numUsed, moved);
+            System.arraycopy(second.items, moved, second.items, 0, second.numUsed - moved);
+            Arrays.fill(second.items, second.numUsed - moved, second.numUsed, null);
+            first.numUsed += moved;
+            second.numUsed -= moved;
+        } else {
+            // borrow from the end of the first array
+            int moved = first.numUsed - firstCount;
+            System.arraycopy(second.items, 0, second.items, moved, second.numUsed);
+            System.arraycopy(first.items, firstCount, second.items, 0, moved);
+            Arrays.fill(first.items, firstCount, first.numUsed, null);
+            first.numUsed -= moved;
+            second.numUsed += moved;
+        }
+    }
+
     /**
      * check if list contains a match
      *
@@ -375,30 +760,158 @@ public class RaggedArrayList<E> implements Iterable<E> {
     }
 
     /**
-     * copy the contents of the RaggedArrayList into the given array
+     * copy the contents of the RaggedArrayList into the given array, one
+     * System.arraycopy per level 2 array
      *
      * @author Brendon Butler
      * Revised by: Brendon Butler (after submission)
-     * @param a - an array of the actual type and of the correct size
+     * @param a - an array of the actual type, a new one of exactly the right
+     *          size is made if it is too short
      * @return the filled in array
      */
     public E[] toArray(E[] a) {
         // TO DO in part 5 and NOT BEFORE
-        Iterator<E> itr = iterator();
-        ArrayList<E> tempArray = new ArrayList<>();
+        if (a.length < size) {
+            a = Arrays.copyOf(a, size);
+        }
+
+        L2Array lastArray = (L2Array) l1Array[l1NumUsed - 1];
+        copyRange(new ListLoc(0, 0), new ListLoc(l1NumUsed - 1, lastArray.numUsed), a);
+
+        // mark the end of the items, as Collection.toArray() does
+        if (a.length > size) {
+            a[size] = null;
+        }
+
+        return a;
+    }
+
+    /**
+     * @return the index of the first item of each used level 2 array, plus
+     * the size at the end, rebuilding it if the list has changed
+     */
+    private int[] blockStarts() {
+        int[] starts = blockStarts;
+
+        if (starts == null) {
+            starts = new int[l1NumUsed + 1];
+
+            for (int i1 = 0; i1 < l1NumUsed; i1++) {
+                starts[i1 + 1] = starts[i1] + ((L2Array) l1Array[i1]).numUsed;
+            }
+
+            blockStarts = starts;
+        }
 
-        // while there is another item in the iterator, add it to the tempArray
+        return starts;
+    }
+
+    /**
+     * @param loc a location in the list
+     * @return the index of the item at the location
+     */
+    private int indexOf(ListLoc loc) {
+        if (loc.level1Index >= l1NumUsed) {
+            return size;
+        }
+
+        return blockStarts()[loc.level1Index] + loc.level2Index;
+    }
+
+    /**
+     * find the location of an index with a binary search of the block starts
+     *
+     * @param index an index from 0 to size, inclusive
+     * @return the location of the item at the index, or just past the last item
+     */
+    private ListLoc locate(int index) {
+        int[] starts = blockStarts();
+        int low = 0, high = l1NumUsed - 1;
+
+        // find the last level 2 array that starts at or before the index
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (starts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return new ListLoc(low, index - starts[low]);
+    }
+
+    /**
+     * get the item at a position in O(log N)
+     *
+     * @author Brendon Butler
+     * @param index position of the item, from 0
+     * @return the item
+     * @throws IndexOutOfBoundsException if the index is not in [0, size)
+     */
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+
+        ListLoc loc = locate(index);
+        return ((L2Array) l1Array[loc.level1Index]).items[loc.level2Index];
+    }
+
+    /**
+     * find the position of an item in O(log N)
+     *
+     * @author Brendon Butler
+     * @param item the thing we are looking for.
+     * @return position of the first item equal to it, or -1 if it is not in the list
+     */
+    public int indexOf(E item) {
+        ListLoc front = findFront(item);
+        int index = indexOf(front);
+        Iterator<E> itr = new Itr(front, null);
+
+        // equal by comparator does not have to mean equal, so check each of those in turn
         while (itr.hasNext()) {
-            tempArray.add(itr.next());
+            E candidate = itr.next();
+
+            if (comp.compare(item, candidate) != 0) {
+                break;
+            }
+
+            if (item.equals(candidate)) {
+                return index;
+            }
+
+            index++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * returns an iterator that starts at a position, found in O(log N)
+     *
+     * @author Brendon Butler
+     * @param fromIndex position of the first item to return, from 0 to size
+     * @return an iterator
+     * @throws IndexOutOfBoundsException if fromIndex is not in [0, size]
+     */
+    public Iterator<E> iterator(int fromIndex) {
+        if (fromIndex < 0 || fromIndex > size) {
+            throw new IndexOutOfBoundsException("index " + fromIndex + ", size " + size);
         }
 
-        return tempArray.toArray(a);
+        return new Itr(locate(fromIndex), null);
     }
 
     /**
-     * returns a new independent RaggedArrayList whose elements range from
-     * fromElemnt, inclusive, to toElement, exclusive. The original list is
-     * unaffected findStart and findEnd will be useful here
+     * returns a new list holding the items from fromElement, inclusive, to
+     * toElement, exclusive. The items come in order, so each one is inserted
+     * at the end without a comparison, and the copy is laid out as add()ing
+     * them would lay it out. It stays a RaggedArrayList of its own because
+     * callers such as RALtester3 read its blocks. Use view() to read a range
+     * without copying it.
      *
      * @author Brendon Butler
      * Revised by: Brendon Butler (after submission)
@@ -409,19 +922,231 @@ public class RaggedArrayList<E> implements Iterable<E> {
     public RaggedArrayList<E> subList(E fromElement, E toElement) {
         // TO DO in part 5 and NOT BEFORE
         RaggedArrayList<E> result = new RaggedArrayList<E>(comp);
-        Itr itr = new Itr();
-
-        itr.loc = findFront(fromElement);
-        ListLoc end = findFront(toElement);
+        Itr itr = new Itr(findFront(fromElement), findFront(toElement));
 
-        // add each item from modified iterator starting point (inclusive) until reaching the end value (exclusive)
-        while (itr.hasNext() && !itr.loc.equals(end)) {
-            result.add(itr.next());
+        // add each item from modified iterator starting point (inclusive) until reaching the end value (exclusive),
+        // after the last item, which is where findEnd() would put it
+        while (itr.hasNext()) {
+            L2Array last = (L2Array) result.l1Array[result.l1NumUsed - 1];
+            result.insert(new ListLoc(result.l1NumUsed - 1, last.numUsed), itr.next());
         }
 
         return result;
     }
 
+    /**
+     * returns a read only view of the items from fromElement, inclusive, to
+     * toElement, exclusive. Making it copies nothing: it only holds the two
+     * ListLoc bounds found with findFront(). Its size is counted from the
+     * block sizes, its iterator walks the blocks in place and toArray() copies
+     * whole block slices.
+     *
+     * Like any view it is only valid until this list is next changed.
+     *
+     * @author Brendon Butler
+     * @param fromElement the starting element
+     * @param toElement the element after the last element we actually want
+     * @return the view
+     */
+    public View view(E fromElement, E toElement) {
+        return new View(fromElement, toElement);
+    }
+
+    /**
+     * copy the items from one location up to, not including, another, one
+     * level 2 array slice at a time
+     *
+     * @author Brendon Butler
+     * @param from the first location, as found by findFront() or findEnd()
+     * @param to   the location after the last one, not before from
+     * @param dest array to copy into, starting at index 0
+     * @return the number of items copied
+     * @throws IndexOutOfBoundsException if dest is too short for the items
+     */
+    public int copyRange(ListLoc from, ListLoc to, E[] dest) {
+        int copied = 0;
+
+        for (int i1 = from.level1Index; i1 <= to.level1Index && i1 < l1NumUsed; i1++) {
+            L2Array l2Array = (L2Array) l1Array[i1];
+            int start = i1 == from.level1Index ? from.level2Index : 0;
+            int end = i1 == to.level1Index ? to.level2Index : l2Array.numUsed;
+
+            System.arraycopy(l2Array.items, start, dest, copied, end - start);
+            copied += end - start;
+        }
+
+        return copied;
+    }
+
+    /**
+     * read only view of a range of a RaggedArrayList, returned by view().
+     * It is not a RaggedArrayList itself, so nothing can reach the blocks
+     * outside its range through it.
+     */
+    public class View implements Iterable<E> {
+        private final E fromElement;
+        private final E toElement;
+        private final ListLoc from;
+        private final ListLoc to;
+        // index in the list of the first item of the range
+        private final int start;
+        private final int size;
+
+        /**
+         * @param fromElement the starting element
+         * @param toElement   the element after the last element we actually want
+         */
+        View(E fromElement, E toElement) {
+            this.fromElement = fromElement;
+            this.toElement = toElement;
+
+            from = findFront(fromElement);
+            // an empty or backwards range ends where it starts
+            to = comp.compare(fromElement, toElement) < 0
+                    ? findFront(toElement) : new ListLoc(from.level1Index, from.level2Index);
+            start = RaggedArrayList.this.indexOf(from);
+            size = RaggedArrayList.this.indexOf(to) - start;
+        }
+
+        /**
+         * @return the number of items in the range
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index position of the item in the range, from 0
+         * @return the item
+         * @throws IndexOutOfBoundsException if the index is not in [0, size)
+         */
+        public E get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+
+            return RaggedArrayList.this.get(start + index);
+        }
+
+        /**
+         * @param item the thing we are looking for.
+         * @return position in the range of the first item equal to it, or -1
+         */
+        public int indexOf(E item) {
+            if (!inRange(item)) {
+                return -1;
+            }
+
+            int index = RaggedArrayList.this.indexOf(item);
+            return index < 0 ? -1 : index - start;
+        }
+
+        /**
+         * @param item the thing we are looking for.
+         * @return true if the item is in the range
+         */
+        public boolean contains(E item) {
+            return inRange(item) && RaggedArrayList.this.contains(item);
+        }
+
+        /**
+         * @param item an item
+         * @return true if the range is not empty and the item sorts inside it
+         */
+        private boolean inRange(E item) {
+            return size > 0 && comp.compare(item, fromElement) >= 0
+                    && comp.compare(item, toElement) < 0;
+        }
+
+        /**
+         * @return an iterator over the items of the range
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return new Itr(new ListLoc(from.level1Index, from.level2Index), to);
+        }
+
+        /**
+         * @param fromIndex position in the range of the first item to return, from 0 to size
+         * @return an iterator that stops at the end of the range
+         * @throws IndexOutOfBoundsException if fromIndex is not in [0, size]
+         */
+        public Iterator<E> iterator(int fromIndex) {
+            if (fromIndex < 0 || fromIndex > size) {
+                throw new IndexOutOfBoundsException("index " + fromIndex + ", size " + size);
+            }
+
+            return new Itr(locate(start + fromIndex), to);
+        }
+
+        /**
+         * @return a spliterator over the items of the range
+         */
+        @Override
+        public Spliterator<E> spliterator() {
+            return new BlockSpliterator(new ListLoc(from.level1Index, from.level2Index), start, start + size);
+        }
+
+        /**
+         * @return a sequential stream of the items of the range in order
+         */
+        public Stream<E> stream() {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        /**
+         * @return a parallel stream of the items of the range, split between level 2 arrays
+         */
+        public Stream<E> parallelStream() {
+            return StreamSupport.stream(spliterator(), true);
+        }
+
+        /**
+         * copy the range into the given array with one System.arraycopy per
+         * level 2 array
+         *
+         * @param a - an array of the actual type, a new one is made if it is too short
+         * @return the filled in array
+         */
+        public E[] toArray(E[] a) {
+            if (a.length < size) {
+                a = Arrays.copyOf(a, size);
+            }
+
+            copyRange(from, to, a);
+
+            if (a.length > size) {
+                a[size] = null;
+            }
+
+            return a;
+        }
+
+        /**
+         * @param fromElement the starting element
+         * @param toElement the element after the last element we actually want
+         * @return a view of the part of this range between the two elements
+         */
+        public View view(E fromElement, E toElement) {
+            E first = comp.compare(fromElement, this.fromElement) > 0 ? fromElement : this.fromElement;
+            E last = comp.compare(toElement, this.toElement) < 0 ? toElement : this.toElement;
+            return new View(first, last);
+        }
+
+        /**
+         * print the size of the range and the level 2 arrays it spans
+         */
+        public void stats() {
+            System.out.println("STATS:");
+            System.out.println("list size N = " + size);
+
+            int blocks = size == 0 ? 0 : to.level1Index - from.level1Index + (to.level2Index > 0 ? 1 : 0);
+            System.out.println("view over " + blocks + " of " + l1NumUsed
+                    + " level 2 arrays.");
+            System.out.println();
+        }
+    }
+
     /**
      * Written by Bob Booth as part of the testing harness for
      * Project Part 5, this stats method allows any RaggedArrayList
@@ -432,27 +1157,65 @@ public class RaggedArrayList<E> implements Iterable<E> {
      */
     public void stats() {
         System.out.println("STATS:");
-        int size = this.size();
-        System.out.println("list size N = " + size);
+        RaggedArrayListStats stats = getStats();
+        System.out.println("list size N = " + stats.getSize());
 
         // level 1 array
-        int l1NumUsed = this.l1NumUsed;
-        System.out.println("level 1 array " + l1NumUsed + " of "
-                + this.l1Array.length + " used.");
+        System.out.println("level 1 array " + stats.getBlockCount() + " of "
+                + stats.getL1Length() + " used.");
 
         // level 2 arrays
+        System.out.printf("level 2 array sizes: min = %d used, avg = %.1f "
+                        + "used, max = %d used.%n%n",
+                stats.getMinBlockSize(),
+                stats.getAverageBlockSize(), stats.getMaxBlockSize());
+    }
+
+    /**
+     * measure the layout of the list and report the structural changes it has
+     * gone through, for tuning the sizing policy
+     *
+     * @author Brendon Butler
+     * @return the metrics of the list as it is now
+     */
+    public RaggedArrayListStats getStats() {
         int minL2size = Integer.MAX_VALUE, maxL2size = 0;
-        for (int i1 = 0; i1 < this.l1NumUsed; i1++) {
-            RaggedArrayList<Song>.L2Array l2array
-                    = (RaggedArrayList<Song>.L2Array)
-                    (this.l1Array[i1]);
+        long capacity = 0;
+        int[] histogram = new int[RaggedArrayListStats.FILL_BUCKETS];
+
+        for (int i1 = 0; i1 < l1NumUsed; i1++) {
+            L2Array l2array = (L2Array) l1Array[i1];
             minL2size = Math.min(minL2size, l2array.numUsed);
             maxL2size = Math.max(maxL2size, l2array.numUsed);
+            capacity += l2array.items.length;
+            histogram[(int) ((long) l2array.numUsed * histogram.length / l2array.items.length)]++;
         }
-        System.out.printf("level 2 array sizes: min = %d used, avg = %.1f "
-                        + "used, max = %d used.%n%n",
-                minL2size,
-                (double) size / l1NumUsed, maxL2size);
+
+        long comparisons = comp instanceof CmpCnt ? ((CmpCnt) comp).getCmpCnt() : -1;
+        return new RaggedArrayListStats(size, l1NumUsed, l1Array.length, capacity, minL2size, maxL2size,
+                histogram, splits, grows, merges, borrows, comparisons);
+    }
+
+    /**
+     * @return the policy deciding when level 2 arrays grow, split and rebalance
+     */
+    public BlockSizingPolicy getSizingPolicy() {
+        return policy;
+    }
+
+    /**
+     * change how level 2 arrays are sized from now on. Arrays already in the
+     * list are left as they are until an add or remove reaches them.
+     *
+     * @author Brendon Butler
+     * @param policy the new sizing policy
+     */
+    public void setSizingPolicy(BlockSizingPolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException("policy");
+        }
+
+        this.policy = policy;
     }
 
     /**
@@ -465,6 +1228,143 @@ public class RaggedArrayList<E> implements Iterable<E> {
         return new Itr();
     }
 
+    /**
+     * returns a spliterator that splits on level 2 array boundaries, so each
+     * half is a run of whole blocks whose size is known exactly
+     *
+     * @author Brendon Butler
+     * @return a SIZED, SUBSIZED, ORDERED and SORTED spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BlockSpliterator(new ListLoc(0, 0), 0, size);
+    }
+
+    /**
+     * @return a sequential stream of the items in order
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream of the items, split between level 2 arrays
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Spliterator over a range of items. It walks the level 2 arrays in
+     * place, and splits off the first half of the blocks it has left, finding
+     * the size of each half from the block starts without counting items.
+     */
+    private class BlockSpliterator implements Spliterator<E> {
+        // block starts taken when the spliterator was made, shared by its splits
+        private final int[] starts;
+        // level 1 index of the block holding the item before fence
+        private final int lastBlock;
+        private final int fence;
+        private int index;
+        private int i1;
+        private int i2;
+
+        /**
+         * @param loc   location of the first item
+         * @param index index of the first item
+         * @param fence index after the last item
+         */
+        BlockSpliterator(ListLoc loc, int index, int fence) {
+            this(blockStarts(), loc.level1Index, loc.level2Index, index, fence,
+                    fence > index ? locate(fence - 1).level1Index : loc.level1Index);
+        }
+
+        /**
+         * @param starts    block starts to share
+         * @param i1        level 1 index of the first item
+         * @param i2        level 2 index of the first item
+         * @param index     index of the first item
+         * @param fence     index after the last item
+         * @param lastBlock level 1 index of the block holding the last item
+         */
+        private BlockSpliterator(int[] starts, int i1, int i2, int index, int fence, int lastBlock) {
+            this.starts = starts;
+            this.i1 = i1;
+            this.i2 = i2;
+            this.index = index;
+            this.fence = fence;
+            this.lastBlock = lastBlock;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index >= fence) {
+                return false;
+            }
+
+            L2Array l2Array = (L2Array) l1Array[i1];
+            E item = l2Array.items[i2];
+
+            if (++i2 == l2Array.numUsed) {
+                i1++;
+                i2 = 0;
+            }
+
+            index++;
+            action.accept(item);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            // one pass over each block's array
+            while (index < fence) {
+                L2Array l2Array = (L2Array) l1Array[i1];
+                int end = Math.min(l2Array.numUsed, i2 + fence - index);
+
+                for (int i = i2; i < end; i++) {
+                    action.accept(l2Array.items[i]);
+                }
+
+                index += end - i2;
+                i1++;
+                i2 = 0;
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            // a run within one block is left whole
+            if (index >= fence || i1 >= lastBlock) {
+                return null;
+            }
+
+            // hand off the blocks before the middle one, this keeps the rest
+            int middle = (i1 + lastBlock + 1) >>> 1;
+            BlockSpliterator prefix = new BlockSpliterator(starts, i1, i2, index, starts[middle], middle - 1);
+
+            i1 = middle;
+            i2 = 0;
+            index = starts[middle];
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | ORDERED | SORTED;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comp;
+        }
+    }
+
     /**
      * Iterator is just a list loc. It starts at (0,0) and finishes with index2
      * 1 past the last item in the last block
@@ -472,6 +1372,10 @@ public class RaggedArrayList<E> implements Iterable<E> {
     private class Itr implements Iterator<E> {
 
         private ListLoc loc;
+        // location to stop at, or null to run to the end of the list
+        private final ListLoc end;
+        // location of the item next() returned last, null once it is removed
+        private ListLoc last;
 
         /*
          * create iterator at start of list
@@ -479,6 +1383,18 @@ public class RaggedArrayList<E> implements Iterable<E> {
          */
         Itr() {
             loc = new ListLoc(0, 0);
+            end = null;
+        }
+
+        /**
+         * create iterator over a range of the list
+         *
+         * @param loc first location, moved as the iterator advances
+         * @param end location to stop at
+         */
+        Itr(ListLoc loc, ListLoc end) {
+            this.loc = loc;
+            this.end = end;
         }
 
         /**
@@ -488,8 +1404,9 @@ public class RaggedArrayList<E> implements Iterable<E> {
          */
         public boolean hasNext() {
             // TO DO in part 5 and NOT BEFORE
-            return (l1Array[loc.level1Index] != null
-                    && ((L2Array) l1Array[loc.level1Index]).items[loc.level2Index] != null);
+            return (end == null || !loc.equals(end))
+                    && l1Array[loc.level1Index] != null
+                    && ((L2Array) l1Array[loc.level1Index]).items[loc.level2Index] != null;
         }
 
         /**
@@ -505,20 +1422,38 @@ public class RaggedArrayList<E> implements Iterable<E> {
             E item = ((L2Array) l1Array[loc.level1Index]).items[loc.level2Index];
 
             // if the location is at the end of the L2Array and not at the end of the L1Array, adjust the L1ArrayIndex
-            if (l1Array[loc.level1Index] == null || item == null) {
+            if (l1Array[loc.level1Index] == null || item == null || (end != null && loc.equals(end))) {
                 throw new IndexOutOfBoundsException();
             }
 
             // move to the next item location
+            last = new ListLoc(loc.level1Index, loc.level2Index);
             loc.moveToNext();
             return item;
         }
 
         /**
-         * Remove is not implemented. Just use this code. (DONE)
+         * remove the item next() returned last. Removing may merge or
+         * rebalance level 2 arrays, so the iterator finds its place again from
+         * the index of the following item.
+         *
+         * @author Brendon Butler
+         * @throws IllegalStateException if next() has not returned an item since the last remove
+         * @throws UnsupportedOperationException on the iterator of a view
          */
         public void remove() {
-            throw new UnsupportedOperationException();
+            if (end != null) {
+                throw new UnsupportedOperationException("views are read only");
+            }
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            // the following item moves down into the removed item's index
+            int index = indexOf(last);
+            removeAt(last);
+            loc = locate(index);
+            last = null;
         }
     }
 }
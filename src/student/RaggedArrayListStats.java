@@ -0,0 +1,181 @@
+/**
+ * File: RaggedArrayListStats.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created structural metrics of a RaggedArrayList
+ *****************************************************************************
+ */
+package student;
+
+import java.util.Arrays;
+
+/**
+ * The layout of a RaggedArrayList at one moment and the structural changes it
+ * has gone through, returned by RaggedArrayList.getStats(). The counts of
+ * splits, grows, merges and borrows run from when the list was built, and
+ * carry over to the versions made by copyWith() and copyWithout().
+ *
+ * @author Brendon Butler
+ */
+public class RaggedArrayListStats {
+    /**
+     * number of buckets in the fill histogram, each a tenth of the capacity
+     */
+    public static final int FILL_BUCKETS = 10;
+
+    private final int size;
+    private final int blockCount;
+    private final int l1Length;
+    private final long capacity;
+    private final int minBlockSize;
+    private final int maxBlockSize;
+    private final int[] fillHistogram;
+    private final long splits;
+    private final long grows;
+    private final long merges;
+    private final long borrows;
+    private final long comparisons;
+
+    /**
+     * @param size          number of items
+     * @param blockCount    number of level 2 arrays in use
+     * @param l1Length      length of the level 1 array
+     * @param capacity      total length of the level 2 arrays in use
+     * @param minBlockSize  fewest items in a level 2 array
+     * @param maxBlockSize  most items in a level 2 array
+     * @param fillHistogram number of level 2 arrays in each tenth of fill
+     * @param splits        full arrays split in two
+     * @param grows         full arrays doubled
+     * @param merges        under full arrays merged into a neighbour
+     * @param borrows       under full arrays that borrowed from a neighbour
+     * @param comparisons   comparisons counted by the comparator, or -1
+     */
+    RaggedArrayListStats(int size, int blockCount, int l1Length, long capacity, int minBlockSize,
+                         int maxBlockSize, int[] fillHistogram, long splits, long grows, long merges,
+                         long borrows, long comparisons) {
+        this.size = size;
+        this.blockCount = blockCount;
+        this.l1Length = l1Length;
+        this.capacity = capacity;
+        this.minBlockSize = minBlockSize;
+        this.maxBlockSize = maxBlockSize;
+        this.fillHistogram = fillHistogram;
+        this.splits = splits;
+        this.grows = grows;
+        this.merges = merges;
+        this.borrows = borrows;
+        this.comparisons = comparisons;
+    }
+
+    /**
+     * @return number of items
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of level 2 arrays in use
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return length of the level 1 array
+     */
+    public int getL1Length() {
+        return l1Length;
+    }
+
+    /**
+     * @return total length of the level 2 arrays in use
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return fewest items in a level 2 array
+     */
+    public int getMinBlockSize() {
+        return minBlockSize;
+    }
+
+    /**
+     * @return average items per level 2 array
+     */
+    public double getAverageBlockSize() {
+        return (double) size / blockCount;
+    }
+
+    /**
+     * @return most items in a level 2 array
+     */
+    public int getMaxBlockSize() {
+        return maxBlockSize;
+    }
+
+    /**
+     * @return fraction of the level 2 arrays' slots that hold items
+     */
+    public double getFillRatio() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * @return for each tenth of fill, from [0%, 10%) up to [90%, 100%), the
+     * number of level 2 arrays filled that far
+     */
+    public int[] getFillHistogram() {
+        return fillHistogram.clone();
+    }
+
+    /**
+     * @return full level 2 arrays split in two
+     */
+    public long getSplits() {
+        return splits;
+    }
+
+    /**
+     * @return full level 2 arrays doubled
+     */
+    public long getGrows() {
+        return grows;
+    }
+
+    /**
+     * @return under full level 2 arrays merged into a neighbour
+     */
+    public long getMerges() {
+        return merges;
+    }
+
+    /**
+     * @return under full level 2 arrays that borrowed items from a neighbour
+     */
+    public long getBorrows() {
+        return borrows;
+    }
+
+    /**
+     * @return comparisons counted so far by the list's comparator if it is a
+     * CmpCnt, else -1
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return the metrics on one line
+     */
+    @Override
+    public String toString() {
+        return String.format("size=%d blocks=%d l1Length=%d fill=%.2f block sizes=[%d, %.1f, %d] "
+                        + "histogram=%s splits=%d grows=%d merges=%d borrows=%d comparisons=%d",
+                size, blockCount, l1Length, getFillRatio(), minBlockSize, getAverageBlockSize(),
+                maxBlockSize, Arrays.toString(fillHistogram), splits, grows, merges, borrows, comparisons);
+    }
+}
@@ -3,6 +3,11 @@
  *****************************************************************************
  *                       Revision History
  *****************************************************************************
+ * 10/18/2026 - Brendon Butler - search() answered from a QueryCache once
+ *                                  one is set
+ * 10/18/2026 - Brendon Butler - Finding both ends of the range with binary
+ *                                  searches on the folded artist keys, count()
+ *                                  and paging
  * 02/03/2022 - Brendon Butler - Updating text output from search method
  * 02/02/2022 - Brendon Butler - Implemented, fixed, and optimized search
  *                                  method
@@ -15,9 +20,7 @@
 
 package student;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.stream.Stream;
 /**
  * Search by Artist Prefix searches the artists in the song database 
@@ -28,6 +31,8 @@ import java.util.stream.Stream;
 public class SearchByArtistPrefix {
     // keep a local direct reference to the song array
     private Song[] songs;  
+    // cache search() is answered from, null when searches are not cached
+    private QueryCache cache;
 
     /**
      * constructor initializes the property. [Done]
@@ -40,62 +45,153 @@ public class SearchByArtistPrefix {
     /**
      * find all songs matching artist prefix uses binary search should operate
      * in time log n + k (# matches)
-     * converts artistPrefix to lowercase and creates a Song object with 
-     * artist prefix as the artist in order to have a Song to compare.
-     * walks back to find the first "beginsWith" match, then walks forward
-     * adding to the arrayList until it finds the last match.
+     * both ends of the range are found with a binary search, so the only
+     * work that grows with the number of matches is copying them out.
      *
      * @param artistPrefix all or part of the artist's name
      * @return an array of songs by artists with substrings that match 
      *    the prefix
      */
     public Song[] search(String artistPrefix) {
-        Song[] result;
-        // create a faux song to use as the compare key.
-        Song key = new Song(artistPrefix.toLowerCase(), "", "");
-        Comparator<Song> comparator = new Song.CmpArtist();
-        ((CmpCnt) comparator).resetCmpCnt(); // zero the count.
-        int prefixLength = artistPrefix.length(); // get the length of the search key to compare
-        // returns the index of where a song that matches the prefix is/should be found (not necessarily the beginning)
-        int index = Arrays.binarySearch(songs, key, comparator);
-
-        System.out.printf("Index from binary search: %11d%n", index);
-        System.out.printf("Binary search comparisons: %10d%n", ((CmpCnt) comparator).getCmpCnt());
-
-        // invert the index value if negative and subtract 1.
-        if (index < 0)
-            index = -index - 1;
-
-        System.out.printf("Front found at: %21d%n", index);
-
-        ArrayList<Song> list = new ArrayList<>();
-
-        // find the first value that equals
-        while (index > 0 &&
-                songs[index-1].getArtist().length() >= prefixLength &&
-                songs[index-1].getArtist().substring(0, prefixLength)
-                        .compareToIgnoreCase(artistPrefix) == 0) {
-            index--;
-        }
+        if (cache != null)
+            return cache.get(QueryCache.Query.ARTIST_PREFIX, artistPrefix, this::find);
 
-        // build the list of songs found from the search string
-        while (index < songs.length &&
-                songs[index].getArtist().length() >= prefixLength &&
-                songs[index].getArtist().substring(0, prefixLength)
-                        .compareToIgnoreCase(artistPrefix) == 0) {
-            list.add(songs[index]);
-            index++;
-        }
+        return find(artistPrefix);
+    }
 
-        System.out.printf("Comparisons to build the list: %6d%n", list.size());
+    /**
+     * @param artistPrefix input search string
+     * @return the songs search() returns, found without the cache
+     */
+    private Song[] find(String artistPrefix) {
+        int[] comparisons = new int[1];
+        int[] range = range(artistPrefix, comparisons);
+
+        System.out.printf("Front found at: %21d%n", range[0]);
+        System.out.printf("End found at: %23d%n", range[1]);
+        System.out.printf("Binary search comparisons: %10d%n", comparisons[0]);
         // calculate the complexity based on the O(K+log_2(n)), where K = num of matches & n = quantity of total songs
-        int actualComplexity = (int) (list.size() + (Math.log(songs.length) / Math.log(2)));
+        int actualComplexity = (int) (range[1] - range[0] + (Math.log(songs.length) / Math.log(2)));
         System.out.printf("Actual complexity is: %15d%n%n", actualComplexity);
 
-        // move the song list to the Song array
-        result = new Song[list.size()];
-        result = list.toArray(result);
-        return result;
+        return Arrays.copyOfRange(songs, range[0], range[1]);
+    }
+
+    /**
+     * One page of the songs by artists matching the prefix, copied straight
+     * from the songs array
+     *
+     * @param artistPrefix all or part of the artist's name
+     * @param offset       number of matching songs to skip
+     * @param limit        most songs to return
+     * @return up to limit matching songs, in artist order
+     */
+    public Song[] search(String artistPrefix, int offset, int limit) {
+        int[] range = range(artistPrefix);
+        int from = range[0] + Math.min(Math.max(offset, 0), range[1] - range[0]);
+        int to = from + Math.max(0, Math.min(limit, range[1] - from));
+
+        return Arrays.copyOfRange(songs, from, to);
+    }
+
+    /**
+     * @param artistPrefix all or part of the artist's name
+     * @return the number of songs by artists matching the prefix, found
+     *    without touching the songs in between
+     */
+    public int count(String artistPrefix) {
+        int[] range = range(artistPrefix);
+        return range[1] - range[0];
+    }
+
+    /**
+     * find the songs by artists matching the prefix
+     *
+     * @param artistPrefix all or part of the artist's name
+     * @return {from, to}: songs from index from, inclusive, to index to,
+     *    exclusive, of the songs array match the prefix
+     */
+    public int[] range(String artistPrefix) {
+        return range(artistPrefix, new int[1]);
+    }
+
+    /**
+     * The songs are sorted by their folded artist key, so the songs whose
+     * key starts with the folded prefix are side by side. The front is the
+     * first song whose key is not before the prefix and the end is the first
+     * song whose key is after every key starting with it.
+     *
+     * @param artistPrefix all or part of the artist's name
+     * @param comparisons  slot 0 is increased by the comparisons made
+     * @return {from, to} index range of the matching songs
+     */
+    private int[] range(String artistPrefix, int[] comparisons) {
+        String prefix = Song.foldCase(artistPrefix);
+        return new int[] {
+            bound(prefix, 0, comparisons),
+            bound(prefix, 1, comparisons)
+        };
+    }
+
+    /**
+     * binary search for the first song whose artist key compares with the
+     * prefix at or above a limit
+     *
+     * @param prefix      the folded prefix
+     * @param limit       0 for the first match, 1 for the first song after the matches
+     * @param comparisons slot 0 is increased by the comparisons made
+     * @return index of that song, or songs.length if there is none
+     */
+    private int bound(String prefix, int limit, int[] comparisons) {
+        int low = 0;
+        int high = songs.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            comparisons[0]++;
+
+            if (comparePrefix(songs[middle].getArtistKey(), prefix) < limit)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * compare the start of a key with a prefix in place, without taking a
+     * substring of the key
+     *
+     * @param key    a folded artist key
+     * @param prefix a folded prefix
+     * @return 0 if the key starts with the prefix, else negative or positive
+     *    as the key sorts before or after every key that does
+     */
+    private static int comparePrefix(String key, String prefix) {
+        int length = Math.min(key.length(), prefix.length());
+
+        for (int i = 0; i < length; i++) {
+            char c1 = key.charAt(i);
+            char c2 = prefix.charAt(i);
+
+            if (c1 != c2)
+                return c1 - c2;
+        }
+
+        // a key that is a shorter part of the prefix sorts before it
+        return key.length() < prefix.length() ? -1 : 0;
+    }
+
+    /**
+     * Answer search() from a cache, which can be shared with the other Search*
+     * classes over the same SongCollection. Searches are not cached until a
+     * cache is set.
+     *
+     * @param cache the cache to use, or null to stop caching
+     */
+    public void setCache(QueryCache cache) {
+        this.cache = cache;
     }
 
     /**
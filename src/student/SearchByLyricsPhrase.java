@@ -3,6 +3,13 @@
  *****************************************************************************
  *                       Revision History
  *****************************************************************************
+ * 10/18/2026 - Brendon Butler - search() skips the exact match check for songs
+ *                               without the word pairs, main() -exact
+ * 10/18/2026 - Brendon Butler - search() answered from a QueryCache once
+ *                               one is set
+ * 10/18/2026 - Brendon Butler - Documenting that only searchExact() uses word pairs
+ * 10/18/2026 - Brendon Butler - Exact phrase search narrowed by an optional BigramIndex
+ * 10/18/2026 - Brendon Butler - Matching and ranking phrases from a PositionalIndex
  * 05/07/2022 - Brendon Butler - completed search function & testing
  * 04/19/2022 - Brendon Butler - implemented search function
  *****************************************************************************
@@ -13,8 +20,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static student.PhraseRanking.RankedSong;
 import static student.PhraseRanking.rankPhrase;
@@ -22,7 +31,11 @@ import static student.PhraseRanking.rankPhrase;
 public class SearchByLyricsPhrase {
 
     private SongCollection sc;
-    private SearchByLyricsWords sblw;
+    private PositionalIndex index;
+    // word pair index for searchExact(), null when it was not asked for
+    private BigramIndex bigrams;
+    // cache search() is answered from, null when searches are not cached
+    private QueryCache cache;
 
     /**
      * Constructor for SearchByLyricsPhrase
@@ -32,24 +45,72 @@ public class SearchByLyricsPhrase {
      */
     public SearchByLyricsPhrase(SongCollection sc) {
         this.sc = sc;
-        sblw = new SearchByLyricsWords(sc);
+        index = new PositionalIndex(sc);
     }
 
     /**
-     * Search method to find songs in which their lyrics match the input search phrase string
+     * Constructor for SearchByLyricsPhrase that also builds a word pair index, which
+     * narrows searchExact() for phrases made mostly of common words. The ranked
+     * search() also ranks songs whose phrase words have other words between them,
+     * which a pair can't rule out, but it only checks the songs holding every pair
+     * for an exact match, the match that ranks best.
+     *
+     * @author Brendon Butler
+     * @param sc              SongCollection instance containing all songs from input file
+     * @param bigramMemoryCap most bytes the word pair index may take
+     * @param bigramMinSongs  fewest songs a word pair must occur in to be indexed
+     */
+    public SearchByLyricsPhrase(SongCollection sc, long bigramMemoryCap, int bigramMinSongs) {
+        this(sc);
+        bigrams = new BigramIndex(index, bigramMemoryCap, bigramMinSongs);
+    }
+
+    /**
+     * Search method to find songs in which their lyrics match the input search phrase string.
+     * Candidates are the songs that contain every word of the phrase, common words included,
+     * and each is ranked from the word positions without reading its lyrics. Word pairs don't
+     * narrow the candidates, since the words need not be side by side, but when the pair index
+     * is built only the candidates holding every pair are checked for an exact match.
      *
      * @author Brendon Butler
      * @param lyricsPhrase input search string
      * @return an array of songs that have lyrics matching the input search phrase string
      */
     public Song[] search(String lyricsPhrase) {
+        if (cache != null)
+            return cache.get(QueryCache.Query.LYRICS_PHRASE, lyricsPhrase, this::find);
+
+        return find(lyricsPhrase);
+    }
+
+    /**
+     * @param lyricsPhrase input search string
+     * @return the songs search() returns, found without the cache
+     */
+    private Song[] find(String lyricsPhrase) {
         List<RankedSong> rankedSongs = new ArrayList<>();
+        int[] words = termIds(lyricsPhrase);
+
+        // a phrase without words, or with a word that never occurs on its own, can't be matched
+        if (words == null)
+            return new Song[0];
+
+        // only songs holding every kept pair of neighbouring words can hold the phrase word for word
+        List<int[]> pairLists = pairSongLists(words);
+        int[] exactCandidates = pairLists.isEmpty() ? null : candidates(pairLists);
+        int next = 0;
 
         // add songs to the rankedSong list
-        for (Song song : sblw.search(lyricsPhrase)) {
-            int rank = rankPhrase(song.getLyrics(), lyricsPhrase);
+        for (int songId : candidates(wordSongLists(words))) {
+            // both lists are ascending, so one forward walk finds each song in the pair candidates
+            while (exactCandidates != null && next < exactCandidates.length && exactCandidates[next] < songId)
+                next++;
+            boolean mayBeExact = exactCandidates == null
+                    || next < exactCandidates.length && exactCandidates[next] == songId;
+
+            int rank = index.rank(songId, words, lyricsPhrase, mayBeExact);
             if (rank >= 0)
-                rankedSongs.add(new RankedSong(rank, song));
+                rankedSongs.add(new RankedSong(rank, index.getSong(songId)));
         }
 
         // sort the rankedSongs by ranking (low to high)
@@ -65,23 +126,129 @@ public class SearchByLyricsPhrase {
         return results;
     }
 
+    /**
+     * Search for songs whose lyrics hold the phrase word for word, with the same
+     * punctuation and spacing. Every match ranks phrase.length(), so the songs are
+     * returned in song id order. When the word pair index is built, the songs of
+     * each indexed pair of neighbouring phrase words narrow the candidates too.
+     *
+     * @author Brendon Butler
+     * @param lyricsPhrase input search string, starting with a letter
+     * @return an array of songs whose lyrics contain the exact phrase
+     */
+    public Song[] searchExact(String lyricsPhrase) {
+        int[] words = termIds(lyricsPhrase);
+
+        if (words == null || LyricsTokenizer.fold(lyricsPhrase.charAt(0)) == 0)
+            return new Song[0];
+
+        List<int[]> songLists = wordSongLists(words);
+        songLists.addAll(pairSongLists(words));
+
+        List<Song> results = new ArrayList<>();
+        for (int songId : candidates(songLists)) {
+            if (index.containsPhrase(songId, words, lyricsPhrase))
+                results.add(index.getSong(songId));
+        }
+
+        return results.toArray(new Song[0]);
+    }
+
+    /**
+     * @param lyricsPhrase input search string
+     * @return term id of each word of the phrase, in phrase order, or null if the phrase
+     * has no words or one of them never occurs
+     */
+    private int[] termIds(String lyricsPhrase) {
+        List<String> phraseWords = LyricsTokenizer.words(lyricsPhrase);
+        int[] words = new int[phraseWords.size()];
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] = index.find(phraseWords.get(i));
+            if (words[i] < 0)
+                return null;
+        }
+
+        return words.length == 0 ? null : words;
+    }
+
+    /**
+     * @param words term ids of the phrase words
+     * @return the song list of each word
+     */
+    private List<int[]> wordSongLists(int[] words) {
+        List<int[]> songLists = new ArrayList<>();
+        for (int word : words)
+            songLists.add(index.songs(word));
+
+        return songLists;
+    }
+
+    /**
+     * @param words term ids of the phrase words
+     * @return the song list of each neighbouring pair of words that the pair index kept,
+     * empty when it was not built
+     */
+    private List<int[]> pairSongLists(int[] words) {
+        List<int[]> songLists = new ArrayList<>();
+        for (int i = 1; bigrams != null && i < words.length; i++) {
+            int[] pairSongs = bigrams.songs(words[i - 1], words[i]);
+            if (pairSongs != null)
+                songLists.add(pairSongs);
+        }
+
+        return songLists;
+    }
+
+    /**
+     * @param songLists ascending song id lists
+     * @return ascending ids of the songs in every list, intersected shortest first
+     */
+    private static int[] candidates(List<int[]> songLists) {
+        songLists.sort(Comparator.comparingInt(songs -> songs.length));
+        int[] found = songLists.get(0);
+
+        for (int i = 1; i < songLists.size() && found.length > 0; i++) {
+            // a repeated word has the same list, intersecting with it again changes nothing
+            if (songLists.get(i) != songLists.get(i - 1))
+                found = SearchByLyricsWords.intersect(found, songLists.get(i));
+        }
+
+        return found;
+    }
+
+    /**
+     * Answer search() from a cache, which can be shared with the other Search*
+     * classes over the same SongCollection. Searches are not cached until a
+     * cache is set.
+     *
+     * @param cache the cache to use, or null to stop caching
+     */
+    public void setCache(QueryCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * testing method for this unit
      * @param args command line arguments set in Project Properties -
      * the first argument is the data file name, the second being a
-     * phrase to search for.
+     * phrase to search for. With -exact third, the word pair index is
+     * built and the songs holding the exact phrase are listed too.
      *
      * Adapted from SearchByArtistPrefix
      * Revised by: Brendon Butler
      */
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.err.println("usage: prog songfile");
+            System.err.println("usage: prog songfile phrase [-exact]");
             return;
         }
 
         SongCollection sc = new SongCollection(args[0]);
-        SearchByLyricsPhrase sblp = new SearchByLyricsPhrase(sc);
+        boolean exact = args.length > 2 && args[2].equals("-exact");
+        SearchByLyricsPhrase sblp = exact
+                ? new SearchByLyricsPhrase(sc, BigramIndex.DEFAULT_MEMORY_CAP, BigramIndex.DEFAULT_MIN_SONGS)
+                : new SearchByLyricsPhrase(sc);
 
         List<RankedSong> rankedSongs = new LinkedList<>();
 
@@ -97,5 +264,15 @@ public class SearchByLyricsPhrase {
         //rankedSongs.sort(RankedSong::compareTo);
         rankedSongs.stream().limit(10).forEach(System.out::println);
         System.out.printf("...total of %d songs%n", rankedSongs.size());
+
+        if (exact) {
+            startTime = Instant.now();
+            Song[] exactSongs = sblp.searchExact(args[1]);
+            endTime = Instant.now();
+            System.out.println("EXACT ELAPSED TIME: " + Duration.between(startTime, endTime).toMillis() + "ms");
+
+            Stream.of(exactSongs).limit(10).forEach(System.out::println);
+            System.out.printf("...total of %d songs with the exact phrase%n", exactSongs.length);
+        }
     }
 }
\ No newline at end of file
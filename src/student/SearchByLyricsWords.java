@@ -3,6 +3,18 @@
  *****************************************************************************
  *                       Revision History
  *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Alphabetical walk only when the words before the
+ *                               last one have no song in common
+ * 10/18/2026 - Brendon Butler - search() answered from a QueryCache once
+ *                               one is set
+ * 10/18/2026 - Brendon Butler - Empty intersections start over as they did before
+ * 10/18/2026 - Brendon Butler - Streamed songs kept without their lyrics
+ * 10/18/2026 - Brendon Butler - Sharing intersect() with SearchByLyricsPhrase
+ * 10/18/2026 - Brendon Butler - Tokenizing with LyricsTokenizer into a TermDictionary
+ * 10/18/2026 - Brendon Butler - Rarest-first galloping intersection in search
+ * 10/18/2026 - Brendon Butler - Dense song ids and sorted int[] posting lists
+ * 10/18/2026 - Brendon Butler - Building the index from a stream of songs
+ * 10/18/2026 - Brendon Butler - Using the word index from a loaded snapshot
  * 05/07/2022 - Brendon Butler - Optimized Constructor
  * 04/11/2022 - Brendon Butler & Adarsha Dangi - changes to search & cleanup
  * 04/08/2022 - Brendon Butler - Implementing search function & tests
@@ -17,12 +29,24 @@ package student;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class SearchByLyricsWords {
-    private Set<String> commonWords;
-    private TreeMap<String, Set<Song>> lyricToSongMap;
+    // words left out of the index, they are the first term ids of every dictionary
+    static final List<String> COMMON_WORDS = Collections.unmodifiableList(Arrays.asList("all", "an", "and", "are",
+            "as", "at", "be", "been", "but", "by", "can", "could", "did", "do", "each", "for", "from", "get", "had",
+            "has", "have", "he", "her", "him", "his", "how", "if", "in", "into", "is", "you", "it", "its", "made",
+            "make", "many", "me", "more", "my", "no", "not", "now", "of", "on", "one", "or", "our", "see", "she", "so",
+            "some", "than", "that", "the", "their", "them", "then", "there", "these", "they", "this", "to", "too",
+            "two", "was", "we", "were", "what", "when", "which", "will", "with", "would", "your"));
+    // word -> term id
+    private TermDictionary terms;
+    // term id -> ascending ids of the songs whose lyrics contain the term
+    private int[][] postings;
+    // song id -> song, the ids are positions in this array
+    private Song[] songs;
+    // cache search() is answered from, null when searches are not cached
+    private QueryCache cache;
 
     /**
      * Constructor for SearchByLyricsWords
@@ -32,39 +56,303 @@ public class SearchByLyricsWords {
      * @param sc SongCollection instance containing all songs from input file
      */
     public SearchByLyricsWords(SongCollection sc) {
-        // Pattern finds all words [a-zA-Z] that are longer than 1 character, greedily
-        lyricToSongMap = new TreeMap<>();
-
-        this.commonWords = new LinkedHashSet<>(Arrays.asList("all", "an", "and", "are", "as", "at", "be", "been", "but",
-                "by", "can", "could", "did", "do", "each", "for", "from", "get", "had", "has", "have", "he", "her",
-                "him", "his", "how", "if", "in", "into", "is", "you", "it", "its", "made", "make", "many", "me", "more",
-                "my", "no", "not", "now", "of", "on", "one", "or", "our", "see", "she", "so", "some", "than", "that",
-                "the", "their", "them", "then", "there", "these", "they", "this", "to", "too", "two", "was", "we",
-                "were", "what", "when", "which", "will", "with", "would", "your"));
-
-        // iterate through all songs in the SongCollection
-        for (Song song : sc.getAllSongs()) {
-            // create a set of all lyricsWords
-            Set<String> lyricWords = Arrays.stream(
-                    song.getLyrics().toLowerCase().split("[^a-zA-Z]+")).collect(Collectors.toSet()
-            );
-
-            // remove all the common words and words shorter than 2 chars from the lyric words for faster searches
-            lyricWords.removeAll(commonWords);
-            lyricWords.removeIf(s -> s.length() < 2);
-
-            // loop through each word in lyricsWords to add them to the lyricToSongMap
-            for (String word : lyricWords) {
-                Set<Song> songSet = lyricToSongMap.get(word);
-
-                if (songSet == null)
-                    songSet = new HashSet<>();
-
-                // add the song to the set of songs and the word to the map as a key with the set of songs as the value
-                songSet.add(song);
-                lyricToSongMap.put(word, songSet);
+        // the song ids used by the postings are the SongCollection ids
+        songs = sc.getAllSongs();
+
+        if (sc.getSnapshot() != null) {
+            loadSnapshot(sc.getSnapshot());
+        } else {
+            index(Arrays.stream(songs), false);
+        }
+    }
+
+    /**
+     * Constructor for SearchByLyricsWords that consumes a stream of songs, such as
+     * SongCollection.stream(), so the index can be built without a songs array.
+     * A parallel stream builds partial maps on each worker and merges them.
+     *
+     * Only the artist and title of each song are kept, so the lyrics of a song
+     * can be collected as soon as it is indexed, and the songs returned by
+     * search() have no lyrics: their getLyrics() returns null.
+     *
+     * @author Brendon Butler
+     * @param songs the songs to index
+     */
+    public SearchByLyricsWords(Stream<Song> songs) {
+        index(songs, true);
+    }
+
+    /**
+     * Build the term dictionary and posting lists. Songs are numbered in stream order.
+     *
+     * @param songStream the songs to index
+     * @param keepSongs  true to keep each song, without its lyrics, as the songs array
+     */
+    private void index(Stream<Song> songStream, boolean keepSongs) {
+        IndexBuilder builder = songStream.collect(() -> new IndexBuilder(keepSongs), IndexBuilder::add,
+                IndexBuilder::append);
+
+        if (keepSongs)
+            songs = builder.songs.toArray(new Song[0]);
+        terms = builder.terms;
+        postings = new int[terms.size()][];
+
+        for (int id = 0; id < postings.length; id++)
+            postings[id] = builder.postings[id] == null ? new int[0] : builder.postings[id].toArray();
+    }
+
+    /**
+     * @return a dictionary that holds only the common words, as term ids 0 to COMMON_WORDS.size() - 1
+     */
+    static TermDictionary commonWordDictionary() {
+        TermDictionary dictionary = new TermDictionary();
+        for (String word : COMMON_WORDS)
+            dictionary.add(word);
+
+        return dictionary;
+    }
+
+    /**
+     * @param id a term id
+     * @return true if the term is one of the common words that are not indexed
+     */
+    private static boolean isCommon(int id) {
+        return id < COMMON_WORDS.size();
+    }
+
+    /**
+     * Partial index used while collecting a (possibly parallel) stream of songs
+     */
+    private static class IndexBuilder {
+        // the songs without their lyrics, or null when the caller already has the songs
+        private final List<Song> songs;
+        private int songCount;
+        private final TermDictionary terms = commonWordDictionary();
+        private final LyricsTokenizer tokens = new LyricsTokenizer("");
+        // term id -> song ids, and the last song id added for the term so each song is added once
+        private IntList[] postings = new IntList[256];
+        private int[] lastSong = new int[256];
+
+        /**
+         * @param keepSongs true to keep each song, without its lyrics
+         */
+        IndexBuilder(boolean keepSongs) {
+            songs = keepSongs ? new ArrayList<>() : null;
+        }
+
+        /**
+         * Add a song under each of its lyrics words. Words shorter than 2 characters and the
+         * common words are skipped.
+         *
+         * @param song the song to add
+         */
+        void add(Song song) {
+            int songId = songCount++;
+            if (songs != null)
+                songs.add(song.withoutLyrics());
+            tokens.reset(song.getLyrics());
+
+            while (tokens.next()) {
+                if (tokens.length() < 2)
+                    continue;
+
+                int id = terms.add(tokens.text(), tokens.start(), tokens.end());
+                if (!isCommon(id))
+                    addPosting(id, songId);
             }
         }
+
+        /**
+         * @param id     a term id
+         * @param songId a song containing the term, never smaller than earlier song ids
+         */
+        private void addPosting(int id, int songId) {
+            if (id >= postings.length) {
+                int length = Math.max(id + 1, postings.length * 2);
+                postings = Arrays.copyOf(postings, length);
+                lastSong = Arrays.copyOf(lastSong, length);
+            }
+
+            if (postings[id] == null) {
+                postings[id] = new IntList();
+            } else if (lastSong[id] == songId) {
+                return;
+            }
+
+            postings[id].add(songId);
+            lastSong[id] = songId;
+        }
+
+        /**
+         * Append a partial index built from the songs that follow this one in the stream.
+         * Its ids are shifted past ours, so every posting list stays in ascending order.
+         *
+         * @param other the later partial index
+         */
+        void append(IndexBuilder other) {
+            int offset = songCount;
+            songCount += other.songCount;
+            if (songs != null)
+                songs.addAll(other.songs);
+
+            for (int otherId = 0; otherId < other.terms.size(); otherId++) {
+                if (otherId >= other.postings.length || other.postings[otherId] == null)
+                    continue;
+
+                IntList posting = other.postings[otherId];
+                int id = terms.add(other.terms.term(otherId));
+
+                for (int i = 0; i < posting.size; i++)
+                    addPosting(id, posting.items[i] + offset);
+            }
+        }
+    }
+
+    /**
+     * Growable list of ints used to build a posting list
+     */
+    private static class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        /**
+         * @param value value to append
+         */
+        void add(int value) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        /**
+         * @return the values as an array of exactly the right length
+         */
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+
+    /**
+     * Fill the dictionary and postings from the terms and postings of a snapshot,
+     * whose song ids are the SongCollection ids
+     *
+     * @param snapshot the loaded snapshot
+     */
+    private void loadSnapshot(SongSnapshot snapshot) {
+        String[] snapshotTerms = snapshot.getTerms();
+        int[][] snapshotPostings = snapshot.getPostings();
+
+        terms = commonWordDictionary();
+        for (String term : snapshotTerms)
+            terms.add(term);
+
+        postings = new int[terms.size()][];
+        Arrays.fill(postings, new int[0]);
+        for (int i = 0; i < snapshotTerms.length; i++)
+            postings[terms.find(snapshotTerms[i])] = snapshotPostings[i];
+    }
+
+    /**
+     * @return the indexed words in ascending order with their song ids, used when writing a snapshot
+     */
+    Map<String, int[]> getIndex() {
+        TreeMap<String, int[]> index = new TreeMap<>();
+
+        for (int id = 0; id < postings.length; id++) {
+            if (postings[id].length > 0)
+                index.put(terms.term(id), postings[id]);
+        }
+
+        return index;
+    }
+
+    /**
+     * Intersect a short posting list with a longer one. Each id of the short list is
+     * looked up in the long list with a galloping search that starts where the
+     * previous lookup ended, so the cost grows with the short list, not the long one.
+     *
+     * @param shorter ascending song ids, the smaller list
+     * @param longer  ascending song ids
+     * @return the ids found in both lists, ascending
+     */
+    static int[] intersect(int[] shorter, int[] longer) {
+        int[] result = new int[shorter.length];
+        int used = 0, from = 0;
+
+        for (int id : shorter) {
+            from = gallop(longer, from, id);
+
+            if (from == longer.length)
+                break;
+
+            if (longer[from] == id)
+                result[used++] = longer[from++];
+        }
+
+        return used == result.length ? result : Arrays.copyOf(result, used);
+    }
+
+    /**
+     * Exponential search: probe from, from + 1, from + 3, from + 7, ... until passing
+     * the target, then binary search the last step
+     *
+     * @param list   ascending song ids
+     * @param from   index to start at, every id before it is known to be smaller
+     * @param target id to look for
+     * @return index of the first id at or after from that is not less than target,
+     * or list.length if there is none
+     */
+    private static int gallop(int[] list, int from, int target) {
+        if (from >= list.length || list[from] >= target)
+            return from;
+
+        // list[low] < target is kept true while the step doubles
+        int low = from, step = 1;
+        while (low + step < list.length && list[low + step] < target) {
+            low += step;
+            step <<= 1;
+        }
+
+        int index = Arrays.binarySearch(list, low + 1, Math.min(low + step + 1, list.length), target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Intersect posting lists starting from the rarest word, so every step works on
+     * the smallest possible list, stopping as soon as nothing is left
+     *
+     * @param wordPostings ascending song id lists
+     * @return the songs in every list, none if there are no lists
+     */
+    private static int[] rarestFirstIntersection(Collection<int[]> wordPostings) {
+        List<int[]> byLength = new ArrayList<>(wordPostings);
+        byLength.sort(Comparator.comparingInt(p -> p.length));
+        int[] found = byLength.isEmpty() ? new int[0] : byLength.get(0);
+
+        for (int i = 1; i < byLength.size() && found.length > 0; i++)
+            found = intersect(found, byLength.get(i));
+
+        return found;
+    }
+
+    /**
+     * Intersect posting lists in order, starting over from the next list whenever
+     * the result so far is empty
+     *
+     * @param wordPostings ascending song id lists, in alphabetical order of their words
+     * @return the songs left after the last list
+     */
+    private static int[] restartingIntersection(Collection<int[]> wordPostings) {
+        int[] found = new int[0];
+
+        for (int[] posting : wordPostings) {
+            if (found.length == 0)
+                found = posting;
+            else
+                found = found.length <= posting.length ? intersect(found, posting) : intersect(posting, found);
+        }
+
+        return found;
     }
 
     /**
@@ -75,29 +363,46 @@ public class SearchByLyricsWords {
      * @return an array of songs that have lyrics matching the input search string
      */
     public Song[] search(String lyricsWords) {
-        Set<Song> foundSongs = new HashSet<>();
-        /* split the lyrics words into individual words (excluding special characters) and remove words shorter than
-           1 character, then add them all to a set of searchStrings */
-        String[] splitString = lyricsWords.toLowerCase().split("[^a-zA-Z]+");
-        Set<String> searchStrings = Arrays.stream(splitString).filter(w -> w.length() > 1)
-                .collect(Collectors.toCollection(TreeSet::new));
-
-        // find the difference of the common words and search strings (omits common words that are in searchStrings)
-        Set<String> intersection = new TreeSet<>(searchStrings);
-        intersection.retainAll(commonWords); // only keep common words that are in the searchStrings
-        searchStrings.removeAll(intersection); // remove common words (difference)
-
-        // loop through each search string
-        for (String searchString : searchStrings) {
-            if (lyricToSongMap.containsKey(searchString)) { // if song(s) contain search string ...
-                // ... add all songs if empty, else only keep intersecting songs
-                if (foundSongs.isEmpty())
-                    foundSongs.addAll(lyricToSongMap.get(searchString));
-                else foundSongs.retainAll(lyricToSongMap.get(searchString));
-            }
+        if (cache != null)
+            return cache.get(QueryCache.Query.LYRICS_WORDS, lyricsWords, this::find);
+
+        return find(lyricsWords);
+    }
+
+    /**
+     * @param lyricsWords input search string
+     * @return the songs search() returns, found without the cache
+     */
+    private Song[] find(String lyricsWords) {
+        /* split the lyrics words into individual words (excluding special characters), skip words shorter than
+           2 characters and common words, and collect the posting list of each distinct word that is in the index */
+        LyricsTokenizer tokens = new LyricsTokenizer(lyricsWords);
+        SortedMap<String, int[]> wordPostings = new TreeMap<>();
+
+        while (tokens.next()) {
+            int id = tokens.length() < 2 ? -1 : terms.find(tokens.text(), tokens.start(), tokens.end());
+
+            if (id >= 0 && !isCommon(id) && postings[id].length > 0)
+                wordPostings.put(terms.term(id), postings[id]);
         }
 
-        return foundSongs.toArray(new Song[0]);
+        int[] foundSongs = rarestFirstIntersection(wordPostings.values());
+
+        /* when no song has every word, the words are taken in alphabetical order as they always
+           were, and a word that would leave no songs starts over from its own songs instead. If
+           every word is in some song, no step in that order can leave nothing, so only this
+           case needs the alphabetical walk. It only starts over if the words before the last
+           one already have no song in common; otherwise only the last word leaves nothing, and
+           the walk would end with no songs too. That is always so for two words. */
+        if (foundSongs.length == 0 && wordPostings.size() > 2
+                && rarestFirstIntersection(wordPostings.headMap(wordPostings.lastKey()).values()).length == 0)
+            foundSongs = restartingIntersection(wordPostings.values());
+
+        Song[] result = new Song[foundSongs.length];
+        for (int i = 0; i < foundSongs.length; i++)
+            result[i] = songs[foundSongs[i]];
+
+        return result;
     }
 
     /**
@@ -108,14 +413,18 @@ public class SearchByLyricsWords {
      */
     public void statistics() {
         // calculate Song references
-        int count = lyricToSongMap.values().stream().mapToInt(Set::size).sum();
+        long count = Arrays.stream(postings).mapToLong(p -> p.length).sum();
+        long keys = Arrays.stream(postings).filter(p -> p.length > 0).count();
+        // the dictionary costs about 20 bytes per key and each int[] has a 16 byte header, each id is 4 bytes
+        long mapSpace = keys * (20 + 16);
+        long songSpace = count * 4;
 
-        System.out.printf("%19s: %,d%n", "Number of Keys", lyricToSongMap.size());
+        System.out.printf("%19s: %,d%n", "Number of Keys", keys);
         System.out.printf("%19s: %,d%n", "Song References", count);
-        System.out.printf("%19s: %,d bytes%n", "Map Space Used", lyricToSongMap.size() * 8);
-        System.out.printf("%19s: %,d bytes%n", "Songs Space Used", count * 8);
-        System.out.printf("%19s: %,d bytes%n", "Compound Space Used", lyricToSongMap.size() * 8 + count * 8);
-        System.out.printf("%19s: O(%s)%n", "Space Complexity", "8N + 8K");
+        System.out.printf("%19s: %,d bytes%n", "Map Space Used", mapSpace);
+        System.out.printf("%19s: %,d bytes%n", "Songs Space Used", songSpace);
+        System.out.printf("%19s: %,d bytes%n", "Compound Space Used", mapSpace + songSpace);
+        System.out.printf("%19s: O(%s)%n", "Space Complexity", "4N + 36K");
     }
 
     /**
@@ -129,20 +438,20 @@ public class SearchByLyricsWords {
         SortedMap<Integer, String> top10 = new TreeMap<>();
 
         Instant start = Instant.now();
-        // loop through each entry in lyricsToSongMap
-        for (Map.Entry<String, Set<Song>> entry : lyricToSongMap.entrySet()) {
+        // loop through each indexed word in alphabetical order
+        for (Map.Entry<String, int[]> entry : getIndex().entrySet()) {
             // if there are less than 10 entries, add the value, else...
             if (top10.size() < 10) {
-                top10.put(entry.getValue().size(), entry.getKey());
+                top10.put(entry.getValue().length, entry.getKey());
             } else {
                 /* ...loop through the quantities, if the current value is greater than the
                  * count of one of the previous most common words, remove the least common
                  * word from the key set and add the new word
                  */
                 for (Integer keyQuantity : top10.keySet()) {
-                    if (keyQuantity < entry.getValue().size()) {
+                    if (keyQuantity < entry.getValue().length) {
                         top10.remove(top10.firstKey());
-                        top10.put(entry.getValue().size(), entry.getKey());
+                        top10.put(entry.getValue().length, entry.getKey());
                         break;
                     }
                 }
@@ -155,6 +464,17 @@ public class SearchByLyricsWords {
         top10.forEach((k, v) -> System.out.printf("%2d) %6s [%5d matches]%n", i[0]--, v, k));
     }
 
+    /**
+     * Answer search() from a cache, which can be shared with the other Search*
+     * classes over the same SongCollection. Searches are not cached until a
+     * cache is set.
+     *
+     * @param cache the cache to use, or null to stop caching
+     */
+    public void setCache(QueryCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * testing method for this unit
      * @param args command line arguments set in Project Properties -
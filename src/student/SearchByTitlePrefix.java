@@ -3,6 +3,18 @@
  *****************************************************************************
  *                       Revision History
  *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Title index held in a ConcurrentRaggedArrayList
+ *                               instead of a copy on write loop of its own
+ * 10/18/2026 - Brendon Butler - search() answered from a QueryCache once
+ *                               one is set
+ * 10/18/2026 - Brendon Butler - Searching a RaggedArrayList.View of the range
+ * 10/18/2026 - Brendon Butler - Catalog updates mark the SongCollection changed
+ * 10/18/2026 - Brendon Butler - Range ends worked out from the folded prefix
+ * 10/18/2026 - Brendon Butler - Copy on write title index so songs can be
+ *                               added and removed while searches run
+ * 10/18/2026 - Brendon Butler - Paging through search results
+ * 10/18/2026 - Brendon Butler - Bulk loading the title index with fromSorted()
+ * 10/18/2026 - Brendon Butler - Using the title order from a loaded snapshot
  * 02/03/2022 - Brendon Butler - Creating Constructor
  *                             - Implementing search function & tests
  *****************************************************************************
@@ -10,11 +22,26 @@
 package student;
 
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.stream.Stream;
 
+/**
+ * Search songs by the start of their title.
+ *
+ * The title index is a ConcurrentRaggedArrayList, which is copy on write. A
+ * search works on the version that was current when it started, which never
+ * changes, so searches take no locks and are never held up by catalog
+ * updates.
+ *
+ * @author Brendon Butler
+ */
 public class SearchByTitlePrefix {
     Comparator<Song> comparator;
-    RaggedArrayList<Song> ral;
+    private final SongCollection sc;
+    // songs in title order, searched one version at a time
+    private final ConcurrentRaggedArrayList<Song> titles;
+    // cache search() is answered from, null when searches are not cached
+    private QueryCache cache;
 
     /**
      * Constructor for SearchByTitlePrefix
@@ -23,14 +50,63 @@ public class SearchByTitlePrefix {
      * @param sc SongCollection instance containing all songs from input file
      */
     public SearchByTitlePrefix(SongCollection sc) {
+        this.sc = sc;
         comparator = new Song.CmpTitle();
-        ral = new RaggedArrayList<>(comparator);
+        Song[] songs = sc.getAllSongs();
+
+        if (sc.getSnapshot() != null) {
+            // the snapshot already knows the title order
+            int[] titleOrder = sc.getSnapshot().getTitleOrder();
+            Song[] byTitle = new Song[titleOrder.length];
+
+            for (int i = 0; i < titleOrder.length; i++) {
+                byTitle[i] = songs[titleOrder[i]];
+            }
 
-        for (Song song : sc.getAllSongs()) {
-            ral.add(song);
+            titles = ConcurrentRaggedArrayList.fromSorted(byTitle, comparator);
+        } else {
+            // stable sort, so songs with equal titles stay in artist order as add() would keep them
+            titles = ConcurrentRaggedArrayList.fromUnsorted(songs, comparator);
         }
 
-        ral.stats();
+        titles.snapshot().stats();
+    }
+
+    /**
+     * Add a song to the title index. Searches already running keep the version
+     * they started with, later ones see the song. The collection is marked
+     * changed so cached results are dropped. The song is only added to the
+     * title index, not to the SongCollection, so SongSnapshot.write() refuses
+     * a title index that has been changed.
+     *
+     * @param song the song to add
+     */
+    public void add(Song song) {
+        titles.add(song);
+        sc.changed();
+    }
+
+    /**
+     * Remove a song from the title index, without disturbing running searches
+     *
+     * @param song the song to remove
+     * @return true if the song was in the index
+     */
+    public boolean remove(Song song) {
+        if (!titles.remove(song))
+            return false;
+
+        sc.changed();
+        return true;
+    }
+
+    /**
+     * @return the current version of the title index, in title order. It is
+     * never changed, so it can be iterated or searched for as long as needed
+     * while songs are added and removed.
+     */
+    public RaggedArrayList<Song> snapshot() {
+        return titles.snapshot();
     }
 
     /**
@@ -41,18 +117,20 @@ public class SearchByTitlePrefix {
      * @return all songs that start with the prefix
      */
     public Song[] search(String titlePrefix) {
-        ((CmpCnt) comparator).resetCmpCnt();
+        if (cache != null)
+            return cache.get(QueryCache.Query.TITLE_PREFIX, titlePrefix, this::find);
 
-        // toPrefix = titlePrefix minus the last character, increment the last character and add it back
-        String toPrefix = titlePrefix.substring(0, titlePrefix.length() - 1)
-                            + (char) (titlePrefix.charAt(titlePrefix.length() - 1) + 1);
+        return find(titlePrefix);
+    }
 
-        // create Song instances for from and to search.
-        Song fromSong = new Song("", titlePrefix, "");
-        Song toSong = new Song("", toPrefix, "");
+    /**
+     * @param titlePrefix input search string
+     * @return the songs search() returns, found without the cache
+     */
+    private Song[] find(String titlePrefix) {
+        ((CmpCnt) comparator).resetCmpCnt();
 
-        // get the subList from the fromSong and toSong arguments
-        RaggedArrayList<Song> resultRAL = ral.subList(fromSong, toSong);
+        RaggedArrayList<Song>.View resultRAL = range(titlePrefix);
         Song[] result = new Song[resultRAL.size()];
 
         System.out.println("Comparisons: " + ((CmpCnt) comparator).cmpCnt);
@@ -61,6 +139,60 @@ public class SearchByTitlePrefix {
         return resultRAL.toArray(result);
     }
 
+    /**
+     * One page of the songs whose title starts with the titlePrefix. The page
+     * is found by position, so a late page costs the same as the first one.
+     *
+     * @param titlePrefix input prefix to search for
+     * @param offset      number of matching songs to skip
+     * @param limit       most songs to return
+     * @return up to limit songs that start with the prefix, in title order
+     */
+    public Song[] search(String titlePrefix, int offset, int limit) {
+        RaggedArrayList<Song>.View resultRAL = range(titlePrefix);
+        int from = Math.min(Math.max(offset, 0), resultRAL.size());
+        Song[] page = new Song[Math.max(0, Math.min(limit, resultRAL.size() - from))];
+        Iterator<Song> itr = resultRAL.iterator(from);
+
+        for (int i = 0; i < page.length; i++) {
+            page[i] = itr.next();
+        }
+
+        return page;
+    }
+
+    /**
+     * @param titlePrefix input prefix to search for
+     * @return a view of the songs whose title starts with the prefix
+     */
+    private RaggedArrayList<Song>.View range(String titlePrefix) {
+        RaggedArrayList<Song> list = titles.snapshot();
+
+        // titles compare folded, so the range ends are worked out from the folded prefix.
+        // toPrefix = the prefix followed by the highest char, which no title holds and which folds
+        // to itself, where incrementing the last character could fold into the middle of the range
+        String prefix = Song.foldCase(titlePrefix);
+        String toPrefix = prefix + Character.MAX_VALUE;
+
+        // create Song instances for from and to search.
+        Song fromSong = new Song("", prefix, "");
+        Song toSong = new Song("", toPrefix, "");
+
+        // get the view from the fromSong and toSong arguments
+        return list.view(fromSong, toSong);
+    }
+
+    /**
+     * Answer search() from a cache, which can be shared with the other Search*
+     * classes over the same SongCollection. Searches are not cached until a
+     * cache is set.
+     *
+     * @param cache the cache to use, or null to stop caching
+     */
+    public void setCache(QueryCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * testing method for this unit
      * @param args command line arguments set in Project Properties -
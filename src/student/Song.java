@@ -3,6 +3,15 @@
  * **********************************************************************
  *                     Revision History (newest first)
  ************************************************************************
+ * 10/18/2026 - Brendon Butler - documenting that stored lyrics are decoded on
+ *                              every getLyrics() call
+ * 10/18/2026 - Brendon Butler - copies without lyrics for streaming indexes
+ * 10/18/2026 - Brendon Butler - songs whose lyrics stay in a snapshot file
+ *                              until they are asked for
+ * 10/18/2026 - Brendon Butler - comparing precomputed case folded artist and
+ *                              title keys instead of compareToIgnoreCase
+ * 10/18/2026 - Brendon Butler - adding the dense song id assigned by
+ *                              SongCollection
  * 03/10/2022 - Brendon Butler - implementing comparator for title
  * 02/01/2022 - Brendon Butler - implementing Aiden's comparator(s)
  *                              (CmpArtist)
@@ -26,6 +35,10 @@ import java.util.Comparator;
 public class Song implements Comparable<Song> {
     // private fields
     private final String ARTIST, TITLE, LYRICS;
+    // artist and title case folded once, so comparisons are plain compareTo calls
+    private final String ARTIST_KEY, TITLE_KEY;
+    // position in the sorted SongCollection, -1 until the song is in a collection
+    private int id = -1;
 
     /**
      * Parameterized constructor
@@ -37,6 +50,53 @@ public class Song implements Comparable<Song> {
         this.ARTIST = artist;
         this.TITLE = title;
         this.LYRICS = lyrics;
+        this.ARTIST_KEY = foldCase(artist);
+        this.TITLE_KEY = foldCase(title);
+    }
+
+    /**
+     * Copy a song without its lyrics, reusing its folded keys
+     *
+     * @param song the song to copy
+     */
+    private Song(Song song) {
+        this.ARTIST = song.ARTIST;
+        this.TITLE = song.TITLE;
+        this.LYRICS = null;
+        this.ARTIST_KEY = song.ARTIST_KEY;
+        this.TITLE_KEY = song.TITLE_KEY;
+        this.id = song.id;
+    }
+
+    /**
+     * Fold the case of each character the way String.compareToIgnoreCase()
+     * does, upper case and then lower case, so that a.compareToIgnoreCase(b)
+     * returns the same value as foldCase(a).compareTo(foldCase(b)).
+     *
+     * @param text the text to fold
+     * @return the folded text, the text itself if no character changes
+     */
+    static String foldCase(String text) {
+        int i = 0;
+        while (i < text.length() && fold(text.charAt(i)) == text.charAt(i))
+            i++;
+
+        if (i == text.length())
+            return text;
+
+        char[] folded = text.toCharArray();
+        for (; i < folded.length; i++)
+            folded[i] = fold(folded[i]);
+
+        return new String(folded);
+    }
+
+    /**
+     * @param c a character
+     * @return the character as compareToIgnoreCase() compares it
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
     }
 
     /**
@@ -66,6 +126,54 @@ public class Song implements Comparable<Song> {
         return TITLE;
     }
 
+    /**
+     * Gets the artist case folded for comparisons, see foldCase()
+     *
+     * @return the folded artist name
+     */
+    public String getArtistKey() {
+        return ARTIST_KEY;
+    }
+
+    /**
+     * Gets the title case folded for comparisons, see foldCase()
+     *
+     * @return the folded title
+     */
+    public String getTitleKey() {
+        return TITLE_KEY;
+    }
+
+    /**
+     * Gets the dense id of the song, which is its index in
+     * SongCollection.getAllSongs().
+     *
+     * @return the song id, or -1 if the song is not in a SongCollection
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the dense id of the song, done by SongCollection once the songs
+     * are sorted.
+     *
+     * @param id the index of the song in the sorted songs array
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Copy of the song without its lyrics, for indexes that only need the
+     * artist and title, so the lyrics can be garbage collected.
+     *
+     * @return a copy of the song whose getLyrics() returns null
+     */
+    Song withoutLyrics() {
+        return new Song(this);
+    }
+
     /**
      * returns name and title ONLY on one line in the form:
      * artist, "title"
@@ -98,11 +206,11 @@ public class Song implements Comparable<Song> {
             comparison = -1;
         else if (this != that) {
             // compare artists, if they are different, this is the return value
-            comparison = this.ARTIST.compareToIgnoreCase(that.ARTIST);
+            comparison = this.ARTIST_KEY.compareTo(that.ARTIST_KEY);
 
             // if the artist is the same, compare the song title, this will be the return value
             if (comparison == 0)
-                comparison = this.TITLE.compareToIgnoreCase(that.TITLE);
+                comparison = this.TITLE_KEY.compareTo(that.TITLE_KEY);
         }
 
         return comparison;
@@ -121,7 +229,7 @@ public class Song implements Comparable<Song> {
         @Override
         public int compare(Song s1, Song s2) {
             cmpCnt++;
-            return s1.getArtist().compareToIgnoreCase(s2.getArtist());
+            return s1.getArtistKey().compareTo(s2.getArtistKey());
         }
     }
 
@@ -139,7 +247,52 @@ public class Song implements Comparable<Song> {
         @Override
         public int compare(Song s1, Song s2) {
             cmpCnt++;
-            return s1.getTitle().compareToIgnoreCase(s2.getTitle());
+            return s1.getTitleKey().compareTo(s2.getTitleKey());
+        }
+    }
+
+    /**
+     * Reads back the lyrics of songs whose lyrics are left where they were
+     * stored, such as a memory-mapped SongSnapshot
+     */
+    interface LyricsSource {
+        /**
+         * @param index which song, as the source numbers them
+         * @return the song's lyrics
+         */
+        String lyrics(int index);
+    }
+
+    /**
+     * A song that keeps only its artist and title in memory. Its lyrics are
+     * not kept, so a large collection costs little more heap than its names.
+     * Each getLyrics() call decodes them from their source again, so code
+     * that reads them more than once should keep the string it got.
+     */
+    static class Stored extends Song {
+        private final LyricsSource source;
+        private final int index;
+
+        /**
+         * @param artist the author of the song
+         * @param title  the title of the song
+         * @param source where the lyrics are kept
+         * @param index  which song's lyrics in the source
+         */
+        Stored(String artist, String title, LyricsSource source, int index) {
+            super(artist, title, null);
+            this.source = source;
+            this.index = index;
+        }
+
+        /**
+         * Gets the lyrics for the song, decoded from the source on every call.
+         *
+         * @return the lyrics of the song
+         */
+        @Override
+        public String getLyrics() {
+            return source.lyrics(index);
         }
     }
 
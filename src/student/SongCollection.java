@@ -3,6 +3,14 @@
  ************************************************************************
  *                     Revision History (newest first)
  ************************************************************************
+ * 10/18/2026 - Brendon Butler - Snapshot songs keep their lyrics in the snapshot
+ * 10/18/2026 - Brendon Butler - Version counter for caches of search results
+ * 10/18/2026 - Brendon Butler - Assigning dense song ids
+ * 10/18/2026 - Brendon Butler - Streaming access to a song file without a Song[]
+ * 10/18/2026 - Brendon Butler - Loading from a binary snapshot when one is current
+ * 10/18/2026 - Brendon Butler - Parallel loading and sorting
+ * 10/18/2026 - Brendon Butler - Reading the song file through the memory-mapped
+ *                              SongFileParser
  * 01/23/2022 - Brendon Butler - Implementing constructor
  * 8.2016 - Anne Applin - formatting and JavaDoc skeletons added   
  * 2015 -   Prof. Bob Boothe - Starting code and main for testing  
@@ -11,12 +19,16 @@
 
 package student;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * SongCollection.java 
@@ -26,6 +38,10 @@ import java.util.stream.Stream;
 public class SongCollection {
 
     private Song[] songs;
+    // prebuilt indexes when the collection was loaded from a snapshot, else null
+    private SongSnapshot snapshot;
+    // bumped by changed(), so caches of search results know to start over
+    private final AtomicLong version = new AtomicLong();
 
     /**
      * Note: in any other language, reading input inside a class is simply not
@@ -39,46 +55,54 @@ public class SongCollection {
      * must be set in the Project Properties as an argument.
      */
     public SongCollection(String fileName) {
-        String currLine, artist, title;
-        StringBuilder lyrics = new StringBuilder();
-        ArrayList<Song> songList = new ArrayList<>();
-        // use a try catch block
-        // read in the song file and build the songs array
-        // there are several ways to read in the lyrics correctly.
-        // the line feeds between lines and the blank lines between verses
-        // must be retained.
-        try {
-            Scanner scanner = new Scanner(new File(fileName));
-
-            while (scanner.hasNextLine()) {
-                currLine = scanner.nextLine();
-                artist = currLine.substring(8, currLine.length() - 1);
-
-                currLine = scanner.nextLine();
-                title = currLine.substring(7, currLine.length() - 1);
-
-                currLine = scanner.nextLine();
-                lyrics.append(currLine.substring(8));
-
-                while (!(currLine = scanner.nextLine()).startsWith("\""))
-                    lyrics.append("\n").append(currLine);
-
-                songList.add(new Song(artist, title, lyrics.toString()));
-                lyrics.setLength(0);
-            }
+        songs = new Song[0];
+        // a current snapshot already holds the sorted songs and the search indexes,
+        // a missing or stale one falls back to reading the text file. The lyrics of
+        // snapshot songs stay in the mapped snapshot until they are asked for.
+        snapshot = SongSnapshot.load(fileName);
+        if (snapshot != null) {
+            songs = snapshot.getSongs();
+            assignIds();
+            return;
+        }
 
-            scanner.close();
-        } catch (FileNotFoundException exception) {
+        // the file is memory mapped and each ARTIST/TITLE/LYRICS record is scanned
+        // directly over the bytes, one chunk of the file per core, see SongFileParser.
+        // The line feeds between lines and the blank lines between verses are retained.
+        try {
+            songs = SongFileParser.readAllParallel(fileName);
+        } catch (NoSuchFileException exception) {
             System.out.printf("File not found: %s", fileName);
+        } catch (IOException exception) {
+            System.out.printf("Unable to read %s: %s%n", fileName, exception.getMessage());
         }
 
-        if (!songList.isEmpty())
-            songs = songList.toArray(new Song[songList.size() - 1]);
-        // sort the songs array using Arrays.sort (see the Java API)
-        // this will use the compareTo() in Song to do the job.
-        Arrays.sort(songs);
+        // sort the songs array using Arrays.parallelSort (see the Java API)
+        // this will use the compareTo() in Song to do the job. The sort is
+        // stable, so equal songs keep their file order as with Arrays.sort.
+        Arrays.parallelSort(songs);
+        assignIds();
     }
  
+    /**
+     * Create a collection from songs that are already in sorted order
+     *
+     * @param songs the songs sorted by compareTo()
+     */
+    SongCollection(Song[] songs) {
+        this.songs = songs;
+        assignIds();
+    }
+
+    /**
+     * Number the songs by their position in the sorted songs array. These dense
+     * ids let indexes store songs as plain ints.
+     */
+    private void assignIds() {
+        for (int i = 0; i < songs.length; i++)
+            songs[i].setId(i);
+    }
+
     /**
      * this is used as the data source for building other data structures
      * @return the songs array
@@ -86,7 +110,60 @@ public class SongCollection {
     public Song[] getAllSongs() {
         return songs;
     }
+
+    /**
+     * @param id a song id
+     * @return the song with that id
+     */
+    public Song getSong(int id) {
+        return songs[id];
+    }
+
+    /**
+     * @return the version of the songs, which changes each time changed() is called
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Record that the songs, or an index built from them, have changed, such
+     * as a song added to or removed from the catalog. Every QueryCache over
+     * this collection drops its results the next time it is used.
+     */
+    public void changed() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return the snapshot this collection was loaded from, or null if it was read from the text file
+     */
+    SongSnapshot getSnapshot() {
+        return snapshot;
+    }
  
+    /**
+     * Stream the songs of a song file in file order without building the songs array.
+     * The stream reads one record at a time, so memory use does not grow with the size
+     * of the file, and it can be made parallel(). Close the stream to release the file.
+     *
+     * @param fileName path to the song file
+     * @return a stream of the songs, unsorted
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<Song> stream(String fileName) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+
+        return StreamSupport.stream(new SongFileSpliterator(channel, 0, channel.size()), false)
+                .onClose(() -> {
+                    try {
+                        channel.close();
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+    }
+
     /**
      * unit testing method
      * @param args
@@ -0,0 +1,593 @@
+/**
+ * File: SongFileParser.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Windows reach only a record's length past the
+ *                               end of the range instead of up to 2GB
+ * 10/18/2026 - Brendon Butler - main() checks the parser against the Scanner
+ *                               loop SongCollection used before it
+ * 10/18/2026 - Brendon Butler - serialVersionUID for ChunkTask
+ * 10/18/2026 - Brendon Butler - Exposing the parse position for SongFileSpliterator
+ * 10/18/2026 - Brendon Butler - Parallel chunked loading on the fork-join pool
+ * 10/18/2026 - Brendon Butler - Created memory-mapped song file parser
+ *****************************************************************************
+ */
+package student;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads ARTIST="..." / TITLE="..." / LYRICS="..." records straight out of a
+ * memory-mapped song file. The only Strings created are the three fields of
+ * each Song; the bytes of a field are copied once into a reusable scratch
+ * buffer and decoded from there.
+ *
+ * A parser covers the records that start in the byte range [from, to) of the
+ * file. The file is mapped in windows of at most Integer.MAX_VALUE bytes so
+ * files larger than 2GB can be read; a record that runs past the end of a
+ * window is re-read from a new window starting at that record. A window
+ * never reaches more than RECORD_OVERRUN bytes past the end of the range,
+ * enough for the last record to finish, so the parsers of a split file each
+ * map little more than their own range. A longer last record doubles that
+ * until it fits.
+ *
+ * readAllParallel() splits the file into byte ranges that start on record
+ * boundaries and parses each range with its own parser on the fork-join pool.
+ *
+ * @author Brendon Butler
+ */
+public class SongFileParser {
+    private static final int ARTIST_PREFIX = "ARTIST=\"".length();
+    private static final int TITLE_PREFIX = "TITLE=\"".length();
+    private static final int LYRICS_PREFIX = "LYRICS=\"".length();
+    private static final byte[] ARTIST_LINE = "ARTIST=\"".getBytes(StandardCharsets.US_ASCII);
+    // files smaller than this are not worth splitting
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    // more chunks than workers so a slow chunk does not hold up the others
+    private static final int CHUNKS_PER_WORKER = 4;
+    // bytes mapped past the end of a range for the record that starts last in it
+    private static final long RECORD_OVERRUN = 1 << 20;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long end;
+    // no window is mapped past this offset, unless a record needs it moved on
+    private long mapEnd;
+    private final int windowSize;
+    private final Charset charset;
+    private final boolean asciiCompatible;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private long position;
+    private byte[] scratch = new byte[1024];
+
+    /**
+     * Create a parser for every record starting in [from, to)
+     *
+     * @param channel    an open channel to the song file
+     * @param from       byte offset of the first record to parse
+     * @param to         byte offset that no parsed record may start at or after
+     * @param windowSize the largest number of bytes to map at one time
+     * @throws IOException if the size of the file cannot be read
+     */
+    public SongFileParser(FileChannel channel, long from, long to, int windowSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.end = Math.min(to, fileSize);
+        this.mapEnd = Math.min(fileSize, end + RECORD_OVERRUN);
+        this.windowSize = windowSize;
+        this.position = from;
+        // Scanner reads the file with the platform charset, so do the same
+        this.charset = Charset.defaultCharset();
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Create a parser for the whole file
+     *
+     * @param channel an open channel to the song file
+     * @throws IOException if the size of the file cannot be read
+     */
+    public SongFileParser(FileChannel channel) throws IOException {
+        this(channel, 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read every song in a song file, in file order
+     *
+     * @param fileName path to the song file
+     * @return the songs in the order they appear in the file
+     * @throws IOException if the file cannot be opened or is malformed
+     */
+    public static List<Song> readAll(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            SongFileParser parser = new SongFileParser(channel);
+            List<Song> songs = new ArrayList<>();
+            Song song;
+
+            while ((song = parser.next()) != null)
+                songs.add(song);
+
+            return songs;
+        }
+    }
+
+    /**
+     * Read every song in a song file using all the workers of the common fork-join pool.
+     * The file is split into byte ranges aligned on ARTIST=" record boundaries, each
+     * range is parsed on its own worker, and the results are concatenated in file order.
+     *
+     * @param fileName path to the song file
+     * @return the songs in the order they appear in the file
+     * @throws IOException if the file cannot be opened or is malformed
+     */
+    public static Song[] readAllParallel(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int workers = ForkJoinPool.commonPool().getParallelism();
+            int chunks = (int) Math.max(1, Math.min((long) workers * CHUNKS_PER_WORKER, size / MIN_CHUNK_SIZE));
+
+            // chunk i covers the records starting in [bounds[i], bounds[i + 1])
+            long[] bounds = new long[chunks + 1];
+            bounds[chunks] = size;
+            for (int i = 1; i < chunks; i++)
+                bounds[i] = recordStartAtOrAfter(channel, Math.max(size / chunks * i, bounds[i - 1]));
+
+            Song[][] parts = new Song[chunks][];
+
+            try {
+                ForkJoinPool.commonPool().invoke(new ChunkTask(channel, bounds, parts, 0, chunks));
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            }
+
+            int total = 0;
+            for (Song[] part : parts)
+                total += part.length;
+
+            Song[] songs = new Song[total];
+            int used = 0;
+            for (Song[] part : parts) {
+                System.arraycopy(part, 0, songs, used, part.length);
+                used += part.length;
+            }
+
+            return songs;
+        }
+    }
+
+    /**
+     * Find the first record that starts at or after the given offset. A record starts on an
+     * ARTIST=" line that follows a line starting with the closing quote of the previous lyrics,
+     * so a lyrics line that happens to begin with ARTIST=" is never mistaken for a boundary.
+     *
+     * @param channel an open channel to the song file
+     * @param offset  byte offset to start looking at
+     * @return the offset of the record, or the file size if no record starts after the offset
+     * @throws IOException if the file cannot be mapped
+     */
+    static long recordStartAtOrAfter(FileChannel channel, long offset) throws IOException {
+        long size = channel.size();
+        long reach = RECORD_OVERRUN;
+
+        // look a record's length ahead, and twice as far again each time no record starts in it
+        while (true) {
+            int length = (int) Math.min(Math.min(Integer.MAX_VALUE, reach), size - offset);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int lineStart = -1; // start of the current line, unknown until the first line feed
+
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) != '\n')
+                    continue;
+
+                if (lineStart >= 0 && buffer.get(lineStart) == '"' && startsWith(buffer, i + 1, ARTIST_LINE))
+                    return offset + i + 1;
+
+                lineStart = i + 1;
+            }
+
+            if (offset + length == size || length == Integer.MAX_VALUE)
+                return size;
+
+            reach *= 2;
+        }
+    }
+
+    /**
+     * @param buffer the mapped bytes
+     * @param at     offset to compare at
+     * @param prefix bytes to look for
+     * @return true if the buffer holds the prefix at the given offset
+     */
+    private static boolean startsWith(MappedByteBuffer buffer, int at, byte[] prefix) {
+        if (at + prefix.length > buffer.limit())
+            return false;
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(at + i) != prefix[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Fork-join task that parses a run of chunks, splitting the run in half until a single
+     * chunk is left
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final Song[][] parts;
+        private final int from, to;
+
+        /**
+         * @param channel an open channel to the song file
+         * @param bounds  chunk boundaries, chunk i is [bounds[i], bounds[i + 1])
+         * @param parts   receives the songs of chunk i in parts[i]
+         * @param from    first chunk of the run (inclusive)
+         * @param to      last chunk of the run (exclusive)
+         */
+        ChunkTask(FileChannel channel, long[] bounds, Song[][] parts, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(channel, bounds, parts, from, middle),
+                        new ChunkTask(channel, bounds, parts, middle, to));
+                return;
+            }
+
+            try {
+                SongFileParser parser = new SongFileParser(channel, bounds[from], bounds[to], Integer.MAX_VALUE);
+                List<Song> songs = new ArrayList<>();
+                Song song;
+
+                while ((song = parser.next()) != null)
+                    songs.add(song);
+
+                parts[from] = songs.toArray(new Song[0]);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * @return byte offset in the file of the next record to parse
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Parse the next record
+     *
+     * @return the next song, or null once no record starts before the end of the range
+     * @throws IOException if the file cannot be mapped or the record is malformed
+     */
+    public Song next() throws IOException {
+        while (true) {
+            // blank lines between records are skipped
+            while (position < end && isLineBreak(byteAt(position)))
+                position++;
+
+            if (position >= end)
+                return null;
+
+            ensureMapped(position);
+            Song song = parseRecord((int) (position - windowStart));
+
+            if (song != null)
+                return song;
+
+            if (windowStart + windowLimit == fileSize)
+                throw new IOException("incomplete song record at byte " + position);
+
+            // the record runs past the end of the window, map a window that starts at the record
+            if (position == windowStart && windowLimit == windowSize)
+                throw new IOException("song record at byte " + position + " is larger than the mapping window");
+
+            // a record longer than the overrun, let the windows reach twice as far past it
+            if (position == windowStart)
+                mapEnd = Math.min(fileSize, windowStart + 2L * windowLimit);
+
+            map(position);
+        }
+    }
+
+    /**
+     * Parse the record that starts at the given window offset and advance the position past it
+     *
+     * @param start offset of the ARTIST line within the current window
+     * @return the parsed song, or null if the record does not end inside the current window
+     * @throws IOException if the record is malformed
+     */
+    private Song parseRecord(int start) throws IOException {
+        int artistEnd = lineEnd(start);
+        if (artistEnd < 0)
+            return null;
+
+        int titleStart = nextLine(artistEnd);
+        int titleEnd = lineEnd(titleStart);
+        if (titleEnd < 0)
+            return null;
+
+        int lyricsStart = nextLine(titleEnd) + LYRICS_PREFIX;
+        int lyricsEnd = closingQuoteLine(lyricsStart);
+        if (lyricsEnd < 0)
+            return null;
+
+        int closingEnd = lineEnd(lyricsEnd + 1);
+        if (closingEnd < 0)
+            return null;
+
+        // each field drops its prefix and the closing quote, exactly as the line based reader did
+        String artist = decode(start + ARTIST_PREFIX, trimReturn(start, artistEnd) - 1, start);
+        String title = decode(titleStart + TITLE_PREFIX, trimReturn(titleStart, titleEnd) - 1, start);
+        String lyrics = decode(lyricsStart, trimReturn(lyricsStart, lyricsEnd), start);
+
+        position = windowStart + nextLine(closingEnd);
+        return new Song(artist, title, lyrics);
+    }
+
+    /**
+     * Find the line feed that is followed by the closing quote of the lyrics
+     *
+     * @param from window offset to start searching at
+     * @return window offset of the line feed, or -1 if it is not inside the window
+     */
+    private int closingQuoteLine(int from) {
+        for (int i = from; i < windowLimit - 1; i++) {
+            if (window.get(i) == '\n' && window.get(i + 1) == '"')
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Find the end of the line starting at the given offset
+     *
+     * @param from window offset of the start of the line
+     * @return window offset of the line feed (or end of file), or -1 if the line does not end inside the window
+     */
+    private int lineEnd(int from) {
+        for (int i = from; i < windowLimit; i++) {
+            if (window.get(i) == '\n')
+                return i;
+        }
+
+        // the last line of the file does not need a line feed
+        return windowStart + windowLimit == fileSize ? windowLimit : -1;
+    }
+
+    /**
+     * @param lineEnd window offset of a line feed (or end of file)
+     * @return window offset of the first byte of the following line
+     */
+    private int nextLine(int lineEnd) {
+        return Math.min(lineEnd + 1, windowLimit);
+    }
+
+    /**
+     * @param lineStart window offset of the start of the line
+     * @param lineEnd   window offset of the line feed ending the line
+     * @return the end of the line's content with a trailing carriage return dropped
+     */
+    private int trimReturn(int lineStart, int lineEnd) {
+        return lineEnd > lineStart && window.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    /**
+     * Copy the bytes of a field into the scratch buffer and decode them. Line breaks are
+     * normalized to a single line feed the way Scanner.nextLine() splits them.
+     *
+     * @param from        window offset of the first byte of the field
+     * @param to          window offset one past the last byte of the field
+     * @param recordStart window offset of the record, used for error messages
+     * @return the decoded field
+     * @throws IOException if the field bounds are inverted
+     */
+    private String decode(int from, int to, int recordStart) throws IOException {
+        int length = to - from;
+
+        if (length < 0)
+            throw new IOException("malformed song record at byte " + (windowStart + recordStart));
+
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+
+        window.position(from);
+        window.get(scratch, 0, length);
+
+        int used = 0;
+        boolean ascii = true;
+
+        // single pass: compact \r\n and lone \r to \n, and watch for non-ASCII bytes
+        for (int i = 0; i < length; i++) {
+            byte b = scratch[i];
+
+            if (b == '\r') {
+                b = '\n';
+                if (i + 1 < length && scratch[i + 1] == '\n')
+                    i++;
+            }
+
+            ascii &= b >= 0;
+            scratch[used++] = b;
+        }
+
+        // ASCII text decodes identically under ISO-8859-1, which is a plain byte copy
+        if (ascii && asciiCompatible)
+            return new String(scratch, 0, used, StandardCharsets.ISO_8859_1);
+
+        return new String(scratch, 0, used, charset);
+    }
+
+    /**
+     * Read a single byte of the file, mapping a new window if needed
+     *
+     * @param filePosition absolute byte offset in the file
+     * @return the byte at that offset
+     * @throws IOException if the window cannot be mapped
+     */
+    private byte byteAt(long filePosition) throws IOException {
+        ensureMapped(filePosition);
+        return window.get((int) (filePosition - windowStart));
+    }
+
+    /**
+     * Make sure the current window contains the given file offset
+     *
+     * @param filePosition absolute byte offset in the file
+     * @throws IOException if the window cannot be mapped
+     */
+    private void ensureMapped(long filePosition) throws IOException {
+        if (window == null || filePosition < windowStart || filePosition >= windowStart + windowLimit)
+            map(filePosition);
+    }
+
+    /**
+     * Map a new read only window starting at the given file offset, reaching no
+     * further than mapEnd
+     *
+     * @param filePosition absolute byte offset in the file
+     * @throws IOException if the window cannot be mapped
+     */
+    private void map(long filePosition) throws IOException {
+        windowStart = filePosition;
+        windowLimit = (int) Math.min(windowSize, Math.max(mapEnd, filePosition + 1) - filePosition);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLimit);
+    }
+
+    /**
+     * @param b a byte of the file
+     * @return true if the byte is a line feed or carriage return
+     */
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Read a song file line by line with a Scanner, the way SongCollection
+     * read it before this parser, for checking the parser against
+     *
+     * @param fileName path to the song file
+     * @return the songs in the order they appear in the file
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    private static List<Song> readWithScanner(String fileName) throws FileNotFoundException {
+        String currLine, artist, title;
+        StringBuilder lyrics = new StringBuilder();
+        List<Song> songList = new ArrayList<>();
+        Scanner scanner = new Scanner(new File(fileName));
+
+        while (scanner.hasNextLine()) {
+            currLine = scanner.nextLine();
+            artist = currLine.substring(8, currLine.length() - 1);
+
+            currLine = scanner.nextLine();
+            title = currLine.substring(7, currLine.length() - 1);
+
+            currLine = scanner.nextLine();
+            lyrics.append(currLine.substring(8));
+
+            while (!(currLine = scanner.nextLine()).startsWith("\""))
+                lyrics.append("\n").append(currLine);
+
+            songList.add(new Song(artist, title, lyrics.toString()));
+            lyrics.setLength(0);
+        }
+
+        // Scanner stops quietly at bytes the platform charset can't decode
+        if (scanner.ioException() != null)
+            System.out.printf("Scanner stopped after %d songs: %s%n", songList.size(), scanner.ioException());
+
+        scanner.close();
+        return songList;
+    }
+
+    /**
+     * @param expected songs as the Scanner read them
+     * @param actual   songs as a parser read them, in the same order
+     * @return the number of songs whose artist, title or lyrics differ, plus
+     * the difference in song counts
+     */
+    private static int differences(List<Song> expected, List<Song> actual) {
+        int differ = Math.abs(expected.size() - actual.size());
+
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            Song a = expected.get(i);
+            Song b = actual.get(i);
+
+            if (!a.getArtist().equals(b.getArtist()) || !a.getTitle().equals(b.getTitle())
+                    || !a.getLyrics().equals(b.getLyrics()))
+                differ++;
+        }
+
+        return differ;
+    }
+
+    /**
+     * testing method for this unit: reads the song file with a Scanner as
+     * SongCollection used to, then with readAll() and readAllParallel(), and
+     * counts the songs that come out differently
+     * @param args command line arguments set in Project Properties -
+     * the first argument is the data file name
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: prog songfile");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<Song> expected = readWithScanner(args[0]);
+            System.out.printf("Scanner:         %d songs in %.1fms%n", expected.size(),
+                    (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            List<Song> sequential = readAll(args[0]);
+            System.out.printf("readAll:         %d songs in %.1fms, %d different%n", sequential.size(),
+                    (System.nanoTime() - start) / 1e6, differences(expected, sequential));
+
+            start = System.nanoTime();
+            Song[] parallel = readAllParallel(args[0]);
+            System.out.printf("readAllParallel: %d songs in %.1fms, %d different%n", parallel.length,
+                    (System.nanoTime() - start) / 1e6, differences(expected, Arrays.asList(parallel)));
+        } catch (IOException exception) {
+            System.err.printf("Unable to read %s: %s%n", args[0], exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * File: SongFileSpliterator.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created streaming spliterator over a song file
+ *****************************************************************************
+ */
+package student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Streams the songs of a song file one record at a time without building a
+ * Song[]. Memory use is one SongFileParser (a mapped window and a scratch
+ * buffer) per spliterator, whatever the size of the file.
+ *
+ * trySplit() hands off the first half of the remaining bytes, cut at the next
+ * ARTIST=" record boundary, so parallel streams spread the file across the
+ * fork-join pool the same way SongFileParser.readAllParallel() does.
+ *
+ * @author Brendon Butler
+ */
+public class SongFileSpliterator implements Spliterator<Song> {
+    // rough size of one record, only used for estimateSize()
+    private static final int ESTIMATED_RECORD_SIZE = 1024;
+    // ranges smaller than this are not split any further
+    private static final long MIN_SPLIT_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private long from;
+    private final long to;
+    private SongFileParser parser;
+
+    /**
+     * Create a spliterator over the records starting in [from, to)
+     *
+     * @param channel an open channel to the song file, closed by the owner of the stream
+     * @param from    byte offset of the first record
+     * @param to      byte offset that no record may start at or after
+     */
+    public SongFileSpliterator(FileChannel channel, long from, long to) {
+        this.channel = channel;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Parse the next song and hand it to the action
+     *
+     * @param action receives the song
+     * @return false once there are no more records in the range
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Song> action) {
+        try {
+            if (parser == null)
+                parser = new SongFileParser(channel, from, to, Integer.MAX_VALUE);
+
+            Song song = parser.next();
+
+            if (song == null)
+                return false;
+
+            action.accept(song);
+            return true;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Split off the first half of the remaining records
+     *
+     * @return a spliterator for the records before the split point, or null if the range is too small
+     */
+    @Override
+    public Spliterator<Song> trySplit() {
+        try {
+            long start = parser == null ? from : parser.getPosition();
+
+            if (to - start < MIN_SPLIT_SIZE)
+                return null;
+
+            long middle = SongFileParser.recordStartAtOrAfter(channel, start + (to - start) / 2);
+
+            if (middle <= start || middle >= to)
+                return null;
+
+            // this spliterator keeps the second half and starts it with a fresh parser
+            parser = null;
+            from = middle;
+            return new SongFileSpliterator(channel, start, middle);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * @return an estimate of the songs left, based on the remaining bytes
+     */
+    @Override
+    public long estimateSize() {
+        long start = parser == null ? from : parser.getPosition();
+        return Math.max(0, to - start) / ESTIMATED_RECORD_SIZE;
+    }
+
+    /**
+     * @return records come out in file order and are never null
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
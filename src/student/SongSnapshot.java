@@ -0,0 +1,707 @@
+/**
+ * File: SongSnapshot.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Lyrics checked against their CRC32 once,
+ *                               then only decoded
+ * 10/18/2026 - Brendon Butler - main() -verify loads the snapshot back and
+ *                               checks it against the text file
+ * 10/18/2026 - Brendon Butler - Mapping the snapshot in windows, lyrics decoded
+ *                               when asked for, common words in the staleness
+ *                               check, reporting why a snapshot is not used
+ * 10/18/2026 - Brendon Butler - Counted title order section, refusing to write a
+ *                               title index that no longer matches the songs
+ * 10/18/2026 - Brendon Butler - Title order from SearchByTitlePrefix.snapshot()
+ * 10/18/2026 - Brendon Butler - Writing the int[] postings and song ids directly
+ * 10/18/2026 - Brendon Butler - Created versioned binary snapshot of the songs
+ *                               and the prebuilt search indexes
+ *****************************************************************************
+ */
+package student;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A binary image of a SongCollection together with the structures the search
+ * classes would otherwise rebuild on every start: the artist sorted song array,
+ * the title order used by SearchByTitlePrefix and the word index used by
+ * SearchByLyricsWords. It is stored next to the song file as
+ * "songfile.snapshot" and loaded by SongCollection when it is present and
+ * still matches the song file and the common words the index leaves out.
+ *
+ * Loading maps the file and decodes only the table: the artist and title of
+ * each song, the title order and the word index. The lyrics, nearly all of
+ * the file, stay in the mapping and are decoded each time a song's lyrics are
+ * asked for (see Song.Stored). The header checksum covers the table; each
+ * song's lyrics carry their own checksum, checked when they are decoded.
+ *
+ * Layout (big endian):
+ * <pre>
+ *   header  magic "SONGSNAP", int version, long source length,
+ *           long source last modified, int checksum of the common words,
+ *           long table position, long CRC32 of the table
+ *   lyrics  the UTF-8 bytes of each song's lyrics, back to back
+ *   table   int song count, then per song artist, title, long lyrics position,
+ *           int lyrics byte length, int CRC32 of the lyrics
+ *           int title count (= song count), int[title count] song ids in title order
+ *           int term count, then per term the term, int posting count, int[] song ids
+ * </pre>
+ * Strings are an int byte length followed by UTF-8 bytes. Song ids are
+ * indexes into the artist sorted song array.
+ *
+ * @author Brendon Butler
+ */
+public class SongSnapshot {
+    private static final byte[] MAGIC = "SONGSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 8 + 8 + 4 + 8 + 8;
+    private static final int TABLE_POSITION_OFFSET = HEADER_SIZE - 16;
+    // largest part of the file mapped as one buffer
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    // kept so the mapping lives as long as the songs whose lyrics are in it
+    private final MappedFile file;
+    private final Song[] songs;
+    // song id -> where its lyrics start in the file, their length in bytes and their CRC32
+    private final long[] lyricsAt;
+    private final int[] lyricsLength;
+    private final int[] lyricsChecksum;
+    // song id -> whether its lyrics have matched their CRC32 once, after which they are only decoded
+    private final boolean[] lyricsChecked;
+    private final int[] titleOrder;
+    private final String[] terms;
+    private final int[][] postings;
+
+    /**
+     * Decode the table of a snapshot
+     *
+     * @param file    the mapped snapshot
+     * @param tableAt position of the table in the file
+     */
+    private SongSnapshot(MappedFile file, long tableAt) {
+        this.file = file;
+        Cursor cursor = new Cursor(file, tableAt);
+        int count = cursor.readInt();
+        songs = new Song[count];
+        lyricsAt = new long[count];
+        lyricsLength = new int[count];
+        lyricsChecksum = new int[count];
+        lyricsChecked = new boolean[count];
+        Song.LyricsSource source = this::lyrics;
+
+        for (int i = 0; i < count; i++) {
+            String artist = cursor.readString();
+            String title = cursor.readString();
+            lyricsAt[i] = cursor.readLong();
+            lyricsLength[i] = cursor.readInt();
+            lyricsChecksum[i] = cursor.readInt();
+            songs[i] = new Song.Stored(artist, title, source, i);
+        }
+
+        titleOrder = cursor.readInts(cursor.readInt());
+        if (!isPermutation(titleOrder, count))
+            throw new IllegalStateException("title order does not match the songs");
+
+        terms = new String[cursor.readInt()];
+        postings = new int[terms.length][];
+
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = cursor.readString();
+            postings[i] = cursor.readInts(cursor.readInt());
+        }
+    }
+
+    /**
+     * @return the songs in artist order
+     */
+    public Song[] getSongs() {
+        return songs;
+    }
+
+    /**
+     * @return song ids (indexes into getSongs()) in title order
+     */
+    public int[] getTitleOrder() {
+        return titleOrder;
+    }
+
+    /**
+     * @return the lyrics index terms in ascending order
+     */
+    public String[] getTerms() {
+        return terms;
+    }
+
+    /**
+     * @return for each term, the ascending ids of the songs whose lyrics contain it
+     */
+    public int[][] getPostings() {
+        return postings;
+    }
+
+    /**
+     * @param songFile path to the song file
+     * @return path of the snapshot that belongs to the song file
+     */
+    public static Path snapshotPath(String songFile) {
+        return Paths.get(songFile + ".snapshot");
+    }
+
+    /**
+     * Load the snapshot that belongs to a song file. When a snapshot is there
+     * but can't be used, the reason is printed, since the song file will be
+     * read instead.
+     *
+     * @param songFile path to the song file
+     * @return the snapshot, or null if there is none or it is stale, corrupt or from another version
+     */
+    public static SongSnapshot load(String songFile) {
+        Path path = snapshotPath(songFile);
+        String problem;
+
+        if (!Files.isRegularFile(path))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed
+            MappedFile file = new MappedFile(channel);
+            problem = check(file, new File(songFile));
+
+            if (problem == null)
+                return new SongSnapshot(file, file.getLong(TABLE_POSITION_OFFSET));
+        } catch (IOException | RuntimeException exception) {
+            problem = "unreadable: " + exception.getMessage();
+        }
+
+        System.out.printf("Not using %s (%s), reading %s%n", path, problem, songFile);
+        return null;
+    }
+
+    /**
+     * Check the header of a snapshot against its song file and the table against its checksum
+     *
+     * @param file   the mapped snapshot
+     * @param source the song file
+     * @return why the snapshot can't be used, or null if it can
+     */
+    private static String check(MappedFile file, File source) {
+        if (file.size() < HEADER_SIZE)
+            return "too short";
+
+        Cursor header = new Cursor(file, 0);
+        byte[] magic = new byte[MAGIC.length];
+        header.readBytes(magic, magic.length);
+
+        if (!Arrays.equals(magic, MAGIC))
+            return "not a song snapshot";
+
+        int version = header.readInt();
+        if (version != VERSION)
+            return "written by version " + version + ", expected " + VERSION;
+
+        if (header.readLong() != source.length() || header.readLong() != source.lastModified())
+            return "the song file has changed";
+
+        if (header.readInt() != commonWordsChecksum())
+            return "the common words have changed";
+
+        long tableAt = header.readLong();
+        long checksum = header.readLong();
+
+        if (tableAt < HEADER_SIZE || tableAt > file.size())
+            return "corrupt header";
+
+        if (file.checksum(tableAt, file.size()) != checksum)
+            return "checksum mismatch";
+
+        return null;
+    }
+
+    /**
+     * @return a checksum of the common words the word index leaves out, so a
+     * snapshot indexed with another list of them is not used
+     */
+    private static int commonWordsChecksum() {
+        byte[] words = String.join(" ", SearchByLyricsWords.COMMON_WORDS).getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(words, 0, words.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Decode the lyrics of a song from the mapping. Used by the Song.Stored
+     * songs of this snapshot. The lyrics are checked against their checksum
+     * the first time they are read; the mapping is read only, so later reads
+     * only decode them.
+     *
+     * @param id a song id
+     * @return the song's lyrics
+     * @throws UncheckedIOException if the lyrics do not match their checksum
+     */
+    private String lyrics(int id) {
+        byte[] bytes = new byte[lyricsLength[id]];
+        file.get(lyricsAt[id], bytes, 0, bytes.length);
+
+        // two threads reading a song for the first time may both check it, which is harmless
+        if (!lyricsChecked[id]) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if ((int) crc.getValue() != lyricsChecksum[id])
+                throw new UncheckedIOException(new IOException("lyrics of song " + id + " are corrupt"));
+
+            lyricsChecked[id] = true;
+        }
+
+        return decode(bytes, bytes.length);
+    }
+
+    /**
+     * @param bytes  UTF-8 bytes
+     * @param length number of bytes to decode
+     * @return the decoded string
+     */
+    private static String decode(byte[] bytes, int length) {
+        boolean ascii = true;
+
+        for (int i = 0; i < length && ascii; i++)
+            ascii = bytes[i] >= 0;
+
+        // ASCII text decodes identically under ISO-8859-1, which is a plain byte copy
+        return new String(bytes, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param ids   song ids
+     * @param count number of songs
+     * @return true if the ids hold every id from 0 to count - 1 exactly once
+     */
+    private static boolean isPermutation(int[] ids, int count) {
+        if (ids.length != count)
+            return false;
+
+        boolean[] seen = new boolean[count];
+        for (int id : ids) {
+            if (id < 0 || id >= count || seen[id])
+                return false;
+            seen[id] = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * A file mapped in windows of at most WINDOW_SIZE bytes, so snapshots
+     * past 2GB can be read. Reads take absolute positions and never move the
+     * position of a shared buffer, so lyrics can be read from many threads.
+     */
+    private static class MappedFile {
+        private final MappedByteBuffer[] windows;
+        private final long size;
+
+        /**
+         * @param channel an open channel to the file
+         * @throws IOException if the file cannot be mapped
+         */
+        MappedFile(FileChannel channel) throws IOException {
+            size = channel.size();
+            windows = new MappedByteBuffer[(int) ((size + WINDOW_SIZE - 1) / WINDOW_SIZE)];
+
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i * WINDOW_SIZE;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+            }
+        }
+
+        /**
+         * @return the length of the file
+         */
+        long size() {
+            return size;
+        }
+
+        /**
+         * @param position a position in the file
+         * @return a view of the bytes from the position to the end of its window
+         */
+        ByteBuffer from(long position) {
+            ByteBuffer view = windows[(int) (position / WINDOW_SIZE)].duplicate();
+            view.position((int) (position % WINDOW_SIZE));
+            return view;
+        }
+
+        /**
+         * @param position where to start reading
+         * @param bytes    receives the bytes
+         * @param offset   where to put the first byte
+         * @param length   number of bytes to read, which may run across windows
+         */
+        void get(long position, byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                ByteBuffer view = from(position);
+                int read = Math.min(length, view.remaining());
+                view.get(bytes, offset, read);
+                position += read;
+                offset += read;
+                length -= read;
+            }
+        }
+
+        /**
+         * @param position where the int starts
+         * @return the big endian int
+         */
+        int getInt(long position) {
+            int offset = (int) (position % WINDOW_SIZE);
+            MappedByteBuffer window = windows[(int) (position / WINDOW_SIZE)];
+
+            if (offset + 4 <= window.limit())
+                return window.getInt(offset);
+
+            // the int runs across two windows
+            byte[] bytes = new byte[4];
+            get(position, bytes, 0, 4);
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+
+        /**
+         * @param position where the long starts
+         * @return the big endian long
+         */
+        long getLong(long position) {
+            return (long) getInt(position) << 32 | getInt(position + 4) & 0xFFFFFFFFL;
+        }
+
+        /**
+         * @param start first position to include
+         * @param end   position after the last one to include
+         * @return the CRC32 of the bytes between them
+         */
+        long checksum(long start, long end) {
+            CRC32 crc = new CRC32();
+
+            while (start < end) {
+                ByteBuffer view = from(start);
+                view.limit((int) Math.min(view.limit(), view.position() + (end - start)));
+                start += view.remaining();
+                crc.update(view);
+            }
+
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * Reads the table of a snapshot in order, copying string bytes through one
+     * reusable scratch buffer
+     */
+    private static class Cursor {
+        private final MappedFile file;
+        private long position;
+        private byte[] scratch = new byte[1024];
+
+        /**
+         * @param file     the mapped snapshot
+         * @param position where to start reading
+         */
+        Cursor(MappedFile file, long position) {
+            this.file = file;
+            this.position = position;
+        }
+
+        /**
+         * @param bytes  receives the bytes
+         * @param length number of bytes to read
+         */
+        void readBytes(byte[] bytes, int length) {
+            file.get(position, bytes, 0, length);
+            position += length;
+        }
+
+        /**
+         * @return the next int
+         */
+        int readInt() {
+            int value = file.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        /**
+         * @return the next long
+         */
+        long readLong() {
+            long value = file.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        /**
+         * @return the next length prefixed UTF-8 string
+         */
+        String readString() {
+            int length = readInt();
+
+            if (length > scratch.length)
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+
+            readBytes(scratch, length);
+            return decode(scratch, length);
+        }
+
+        /**
+         * @param count number of ints to read
+         * @return the next count ints
+         */
+        int[] readInts(int count) {
+            int[] ints = new int[count];
+            int read = 0;
+
+            while (read < count) {
+                ByteBuffer view = file.from(position);
+                int whole = Math.min(count - read, view.remaining() / 4);
+
+                if (whole == 0) {
+                    // the int runs across two windows
+                    ints[read++] = readInt();
+                    continue;
+                }
+
+                view.asIntBuffer().get(ints, read, whole);
+                read += whole;
+                position += 4L * whole;
+            }
+
+            return ints;
+        }
+    }
+
+    /**
+     * Write the snapshot for a song file. The snapshot is written to a temporary
+     * file first and moved into place, so readers never see a partial snapshot.
+     *
+     * @param songFile path to the song file the collection was read from
+     * @param sc       the song collection
+     * @param sbtp     title index built from the collection
+     * @param sblw     lyrics word index built from the collection
+     * @throws IOException           if the snapshot cannot be written
+     * @throws IllegalStateException if songs were added to or removed from the title index,
+     *                               so it no longer holds exactly the songs of the collection
+     */
+    public static void write(String songFile, SongCollection sc, SearchByTitlePrefix sbtp,
+                             SearchByLyricsWords sblw) throws IOException {
+        Song[] songs = sc.getAllSongs();
+        int[] titleOrder = titleOrder(songs, sbtp.snapshot());
+        File source = new File(songFile);
+        Path path = snapshotPath(songFile);
+        Path temp = Paths.get(path + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // the header goes in last, once the table position and checksum are known
+            channel.position(HEADER_SIZE);
+            BufferedOutputStream body = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            long[] lyricsAt = new long[songs.length];
+            int[] lyricsLength = new int[songs.length];
+            int[] lyricsChecksum = new int[songs.length];
+            long position = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+
+            for (int i = 0; i < songs.length; i++) {
+                byte[] bytes = songs[i].getLyrics().getBytes(StandardCharsets.UTF_8);
+                crc.reset();
+                crc.update(bytes, 0, bytes.length);
+
+                lyricsAt[i] = position;
+                lyricsLength[i] = bytes.length;
+                lyricsChecksum[i] = (int) crc.getValue();
+                body.write(bytes);
+                position += bytes.length;
+            }
+
+            long tableAt = position;
+            crc.reset();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(body, crc));
+
+            out.writeInt(songs.length);
+            for (int i = 0; i < songs.length; i++) {
+                writeString(out, songs[i].getArtist());
+                writeString(out, songs[i].getTitle());
+                out.writeLong(lyricsAt[i]);
+                out.writeInt(lyricsLength[i]);
+                out.writeInt(lyricsChecksum[i]);
+            }
+
+            out.writeInt(titleOrder.length);
+            for (int id : titleOrder)
+                out.writeInt(id);
+
+            Map<String, int[]> index = sblw.getIndex();
+            out.writeInt(index.size());
+            for (Map.Entry<String, int[]> entry : index.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (int id : entry.getValue())
+                    out.writeInt(id);
+            }
+
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putInt(VERSION).putLong(source.length()).putLong(source.lastModified())
+                    .putInt(commonWordsChecksum()).putLong(tableAt).putLong(crc.getValue());
+            header.flip();
+            channel.write(header, 0);
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param songs  songs of the collection in artist order
+     * @param titles the title index
+     * @return the id of each song in title order, songs are identified by their
+     * index in the artist sorted array
+     * @throws IllegalStateException if the title index does not hold exactly the songs
+     */
+    private static int[] titleOrder(Song[] songs, RaggedArrayList<Song> titles) {
+        int[] ids = new int[titles.size()];
+        int i = 0;
+
+        for (Song song : titles) {
+            int id = song.getId();
+            // a song added to the title index has no id, or the id of another collection's song
+            ids[i++] = id >= 0 && id < songs.length && songs[id] == song ? id : -1;
+        }
+
+        if (!isPermutation(ids, songs.length))
+            throw new IllegalStateException("the title index no longer holds the songs of the collection");
+
+        return ids;
+    }
+
+    /**
+     * @param out    snapshot body stream
+     * @param string string to write as a length prefixed UTF-8 string
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Load the snapshot of a song file back and check that it gives the same
+     * songs, title order and word searches as the indexes built from the text
+     *
+     * @param songFile path to the song file
+     * @param sc       the songs read from the text file
+     * @param sbtp     title index built from the text file
+     * @param sblw     word index built from the text file
+     * @return the number of differences found
+     */
+    private static int verify(String songFile, SongCollection sc, SearchByTitlePrefix sbtp,
+                              SearchByLyricsWords sblw) {
+        SongCollection loaded = new SongCollection(songFile);
+        if (loaded.getSnapshot() == null) {
+            System.out.println("The snapshot was not loaded");
+            return 1;
+        }
+
+        Song[] songs = sc.getAllSongs();
+        Song[] stored = loaded.getAllSongs();
+        int differ = Math.abs(songs.length - stored.length);
+
+        for (int i = 0; i < Math.min(songs.length, stored.length); i++) {
+            if (!songs[i].getArtist().equals(stored[i].getArtist()) || !songs[i].getTitle().equals(stored[i].getTitle())
+                    || !songs[i].getLyrics().equals(stored[i].getLyrics()))
+                differ++;
+        }
+        System.out.printf("songs: %d checked, %d different%n", songs.length, differ);
+
+        // the title index of the loaded collection is built from the stored title order
+        int titleDiffer = 0;
+        Iterator<Song> expected = sbtp.snapshot().iterator();
+        Iterator<Song> actual = new SearchByTitlePrefix(loaded).snapshot().iterator();
+
+        while (expected.hasNext() && actual.hasNext()) {
+            if (expected.next().getId() != actual.next().getId())
+                titleDiffer++;
+        }
+        if (expected.hasNext() || actual.hasNext())
+            titleDiffer++;
+        System.out.printf("title order: %d different%n", titleDiffer);
+
+        // every hundredth title as a lyrics words query
+        int wordDiffer = 0;
+        int queries = 0;
+        SearchByLyricsWords storedWords = new SearchByLyricsWords(loaded);
+
+        for (int i = 0; i < songs.length; i += 100, queries++) {
+            Song[] a = sblw.search(songs[i].getTitle());
+            Song[] b = storedWords.search(songs[i].getTitle());
+
+            boolean same = a.length == b.length;
+            for (int j = 0; same && j < a.length; j++)
+                same = a[j].getId() == b[j].getId();
+
+            if (!same)
+                wordDiffer++;
+        }
+        System.out.printf("word searches: %d checked, %d different%n", queries, wordDiffer);
+
+        return differ + titleDiffer + wordDiffer;
+    }
+
+    /**
+     * Rebuild the snapshot for a song file from the text file, and with
+     * -verify load it back and check it against the text file
+     *
+     * @param args the song file, optionally followed by -verify
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: prog songfile [-verify]");
+            return;
+        }
+
+        try {
+            // always start from the text file, even if a snapshot exists
+            Song[] songs = SongFileParser.readAllParallel(args[0]);
+            Arrays.parallelSort(songs);
+            SongCollection sc = new SongCollection(songs);
+            SearchByTitlePrefix sbtp = new SearchByTitlePrefix(sc);
+            SearchByLyricsWords sblw = new SearchByLyricsWords(sc);
+
+            long start = System.nanoTime();
+            write(args[0], sc, sbtp, sblw);
+            System.out.printf("Wrote %s (%d songs) in %.1fms%n", snapshotPath(args[0]), songs.length,
+                    (System.nanoTime() - start) / 1e6);
+
+            if (args.length > 1 && args[1].equals("-verify"))
+                System.out.printf("%d differences%n", verify(args[0], sc, sbtp, sblw));
+        } catch (IOException exception) {
+            System.err.printf("Unable to write snapshot for %s: %s%n", args[0], exception.getMessage());
+        }
+    }
+}
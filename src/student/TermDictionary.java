@@ -0,0 +1,182 @@
+/**
+ * File: TermDictionary.java
+ *****************************************************************************
+ *                       Revision History
+ *****************************************************************************
+ * 10/18/2026 - Brendon Butler - Created term dictionary keyed by text spans
+ *****************************************************************************
+ */
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Interns lowercase words as dense int term ids. Words are looked up straight
+ * from a span of the text they appear in, folding case as they are compared,
+ * so looking up a word that is already known creates no objects. A String is
+ * only made the first time a word is added.
+ *
+ * Open addressing hash table: table holds term id + 1 (0 is an empty slot)
+ * and is kept at most half full.
+ *
+ * @author Brendon Butler
+ */
+public class TermDictionary {
+    private String[] terms = new String[64];
+    private int[] hashes = new int[64];
+    private int[] table = new int[128];
+    private int size;
+
+    /**
+     * @return the number of terms
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param id a term id
+     * @return the lowercase word with that id
+     */
+    public String term(int id) {
+        return terms[id];
+    }
+
+    /**
+     * Look up the word in text[start, end) after folding its case
+     *
+     * @param text  text holding the word
+     * @param start index of the first character of the word
+     * @param end   index one past the last character of the word
+     * @return the term id, or -1 if the word is not in the dictionary
+     */
+    public int find(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = table.length - 1;
+
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && equal(terms[id], text, start, end))
+                return id;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param word a lowercase word
+     * @return the term id, or -1 if the word is not in the dictionary
+     */
+    public int find(String word) {
+        return find(word, 0, word.length());
+    }
+
+    /**
+     * Look up the word in text[start, end), adding it if it is new
+     *
+     * @param text  text holding the word
+     * @param start index of the first character of the word
+     * @param end   index one past the last character of the word
+     * @return the term id
+     */
+    public int add(CharSequence text, int start, int end) {
+        int id = find(text, start, end);
+
+        if (id >= 0)
+            return id;
+
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = LyricsTokenizer.fold(text.charAt(start + i));
+
+        return insert(new String(chars), hash(text, start, end));
+    }
+
+    /**
+     * @param word a lowercase word
+     * @return the term id, adding the word if it is new
+     */
+    public int add(String word) {
+        return add(word, 0, word.length());
+    }
+
+    /**
+     * Store a new term and give it the next id
+     *
+     * @param term the lowercase word
+     * @param hash its hash
+     * @return the new term id
+     */
+    private int insert(String term, int hash) {
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+
+        int id = size++;
+        terms[id] = term;
+        hashes[id] = hash;
+
+        if (size * 2 > table.length)
+            rehash(table.length * 2);
+        else
+            place(id);
+
+        return id;
+    }
+
+    /**
+     * @param id a term id to place in the first free slot of its probe sequence
+     */
+    private void place(int id) {
+        int mask = table.length - 1;
+        int slot = hashes[id] & mask;
+
+        while (table[slot] != 0)
+            slot = (slot + 1) & mask;
+
+        table[slot] = id + 1;
+    }
+
+    /**
+     * @param capacity the new table length, a power of two
+     */
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int id = 0; id < size; id++)
+            place(id);
+    }
+
+    /**
+     * @param term  a lowercase word
+     * @param text  text holding a word
+     * @param start index of the first character of the word
+     * @param end   index one past the last character of the word
+     * @return true if the word folds to the term
+     */
+    private static boolean equal(String term, CharSequence text, int start, int end) {
+        if (term.length() != end - start)
+            return false;
+
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) != LyricsTokenizer.fold(text.charAt(start + i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param text  text holding a word
+     * @param start index of the first character of the word
+     * @param end   index one past the last character of the word
+     * @return hash of the folded word, spread so the low bits are usable as a slot
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + LyricsTokenizer.fold(text.charAt(i));
+
+        return hash ^ (hash >>> 16);
+    }
+}